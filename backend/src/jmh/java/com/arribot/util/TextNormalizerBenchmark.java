@@ -0,0 +1,63 @@
+package com.arribot.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TextNormalizer} against the regex pipeline it replaced, on resume-like text.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec}, which adds the GC profiler so each
+ * run also reports gc.alloc.rate.norm (bytes allocated per call); pass other JMH options
+ * through {@code -Djmh.args="-prof gc ..."}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormalizerBenchmark {
+
+    private static final String[] WORDS = {
+            "Java", "Spring", "Boot", "MongoDB", "led", "a", "team", "of", "5", "engineers", "(2019-2023)",
+            "•", "reduced", "latency", "by", "40%", "—", "Zürich", "C++", "résumé", "©", "📧", "e-mail:"
+    };
+    private static final String[] GAPS = {" ", " ", " ", "  ", "\n", "\t", " \n ", "\r\n"};
+
+    @Param({"2000", "50000"})
+    private int length;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(length);
+        StringBuilder builder = new StringBuilder(length + 32);
+        while (builder.length() < length) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(GAPS[random.nextInt(GAPS.length)]);
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public String regex() {
+        return text.replaceAll("\\s+", " ").replaceAll("[^\\p{L}\\p{N}\\p{P}\\s]", "").trim();
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return TextNormalizer.clean(text);
+    }
+}
@@ -0,0 +1,74 @@
+package com.arribot.config;
+
+import com.arribot.model.CompressedText;
+import com.arribot.util.TextCompressor;
+import org.bson.BsonValue;
+import org.bson.types.Binary;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * Custom conversions shared by the blocking and reactive templates.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(TextCompressor textCompressor) {
+        return new MongoCustomConversions(List.of(
+                new CompressedTextWriter(textCompressor),
+                new CompressedTextReader(),
+                new CompressedBinaryReader(textCompressor)));
+    }
+
+    @WritingConverter
+    static class CompressedTextWriter implements Converter<CompressedText, BsonValue> {
+        private final TextCompressor textCompressor;
+
+        CompressedTextWriter(TextCompressor textCompressor) {
+            this.textCompressor = textCompressor;
+        }
+
+        @Override
+        public BsonValue convert(CompressedText source) {
+            return textCompressor.encode(source.toString());
+        }
+    }
+
+    /**
+     * Short texts, and everything written before compression was introduced.
+     */
+    @ReadingConverter
+    static class CompressedTextReader implements Converter<String, CompressedText> {
+        @Override
+        public CompressedText convert(String source) {
+            return CompressedText.of(source);
+        }
+    }
+
+    /**
+     * Keeps the bytes; they are only inflated when the text is first read.
+     */
+    @ReadingConverter
+    static class CompressedBinaryReader implements Converter<Binary, CompressedText> {
+        private final TextCompressor textCompressor;
+
+        CompressedBinaryReader(TextCompressor textCompressor) {
+            this.textCompressor = textCompressor;
+        }
+
+        @Override
+        public CompressedText convert(Binary source) {
+            if (source.getType() != TextCompressor.BINARY_SUBTYPE) {
+                throw new IllegalArgumentException("Unexpected binary subtype " + source.getType() + " for text field");
+            }
+            return CompressedText.deferred(source.getData(), textCompressor::decode);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.arribot.config;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs explain on every repository query at startup and refuses to start if
+ * any of them would scan a whole collection or sort in memory.
+ *
+ * Derived queries are rebuilt from the method name, @Query methods from their
+ * JSON with placeholders bound to a sample value. Enable with
+ * mongodb.index.verification.enabled=true (CI and staging).
+ */
+@Component
+@ConditionalOnProperty(name = "mongodb.index.verification.enabled", havingValue = "true")
+public class QueryIndexVerifier implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryIndexVerifier.class);
+
+    private static final String SAMPLE_VALUE = "sample";
+
+    private final ApplicationContext applicationContext;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public QueryIndexVerifier(ApplicationContext applicationContext,
+                              MongoTemplate mongoTemplate,
+                              MongoMappingContext mappingContext) {
+        this.applicationContext = applicationContext;
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> violations = new ArrayList<>();
+        int checked = 0;
+
+        // Every repository bean, blocking and reactive alike (Repositories keeps only one per domain type)
+        for (RepositoryFactoryInformation<?, ?> factory
+                : applicationContext.getBeansOfType(RepositoryFactoryInformation.class).values()) {
+            RepositoryInformation info = factory.getRepositoryInformation();
+            Class<?> domainType = info.getDomainType();
+            String collection = mongoTemplate.getCollectionName(domainType);
+
+            for (Method method : info.getQueryMethods()) {
+                String label = info.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                Document filter;
+                Document sort;
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    filter = Document.parse(bindPlaceholders(query.value()));
+                    sort = query.sort().isEmpty() ? new Document() : Document.parse(query.sort());
+                } else {
+                    PartTree tree = new PartTree(method.getName(), domainType);
+                    filter = toFilter(tree, domainType);
+                    sort = toSort(tree.getSort(), domainType);
+                }
+
+                List<String> stages = new ArrayList<>();
+                collectStages(explain(collection, filter, sort), stages);
+                checked++;
+
+                if (stages.contains("COLLSCAN") || stages.contains("SORT")) {
+                    violations.add(label + " on " + collection + " filter=" + filter.toJson()
+                            + " sort=" + sort.toJson() + " plan=" + stages);
+                } else {
+                    logger.debug("Index check passed — {} plan: {}", label, stages);
+                }
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            violations.forEach(v -> logger.error("Unindexed repository query: {}", v));
+            throw new IllegalStateException(violations.size() + " repository queries are not backed by an index: "
+                    + String.join("; ", violations));
+        }
+        logger.info("Index check passed for {} repository queries", checked);
+    }
+
+    private Document explain(String collection, Document filter, Document sort) {
+        Document find = new Document("find", collection).append("filter", filter);
+        if (!sort.isEmpty()) {
+            find.append("sort", sort);
+        }
+        Document command = new Document("explain", find).append("verbosity", "queryPlanner");
+        Document result = mongoTemplate.getDb().runCommand(command);
+        Document planner = result.get("queryPlanner", Document.class);
+        return planner != null ? planner.get("winningPlan", Document.class) : new Document();
+    }
+
+    /**
+     * Depth-first walk of a plan tree, collecting every stage name (inputStage, inputStages, queryPlan, ...).
+     */
+    private void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            doc.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private Document toFilter(PartTree tree, Class<?> domainType) {
+        Document filter = new Document();
+        for (Part part : tree.getParts()) {
+            String field = fieldName(part.getProperty().toDotPath(), domainType);
+            Object value = switch (part.getType()) {
+                case SIMPLE_PROPERTY -> SAMPLE_VALUE;
+                case GREATER_THAN, GREATER_THAN_EQUAL, AFTER -> new Document("$gte", SAMPLE_VALUE);
+                case LESS_THAN, LESS_THAN_EQUAL, BEFORE -> new Document("$lte", SAMPLE_VALUE);
+                case IN -> new Document("$in", List.of(SAMPLE_VALUE));
+                default -> new Document("$exists", true);
+            };
+            filter.append(field, value);
+        }
+        return filter;
+    }
+
+    private Document toSort(Sort sort, Class<?> domainType) {
+        Document document = new Document();
+        for (Sort.Order order : sort) {
+            document.append(fieldName(order.getProperty(), domainType), order.isAscending() ? 1 : -1);
+        }
+        return document;
+    }
+
+    private String fieldName(String propertyPath, Class<?> domainType) {
+        PersistentPropertyPath<MongoPersistentProperty> path =
+                mappingContext.getPersistentPropertyPath(propertyPath, domainType);
+        return path.toDotPath(MongoPersistentProperty::getFieldName);
+    }
+
+    private static String bindPlaceholders(String json) {
+        return json.replaceAll("\\?\\d+", "\"" + SAMPLE_VALUE + "\"");
+    }
+}
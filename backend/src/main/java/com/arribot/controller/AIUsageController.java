@@ -1,9 +1,18 @@
 package com.arribot.controller;
 
+import com.arribot.model.AIUsageRollup;
 import com.arribot.service.AILimitsService;
+import com.arribot.service.AIUsageEventService;
+import com.arribot.service.AIUsageRollupService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -12,23 +21,119 @@ import java.util.Map;
 public class AIUsageController {
 
     private final AILimitsService aiLimitsService;
+    private final AIUsageRollupService rollupService;
+    private final AIUsageEventService eventService;
 
-    public AIUsageController(AILimitsService aiLimitsService) {
+    public AIUsageController(AILimitsService aiLimitsService, AIUsageRollupService rollupService,
+                             AIUsageEventService eventService) {
         this.aiLimitsService = aiLimitsService;
+        this.rollupService = rollupService;
+        this.eventService = eventService;
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<?> getUserStats(@RequestParam String userId) {
+    public ResponseEntity<?> getUserStats(
+            @RequestParam String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             if (userId == null || userId.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "User ID is required"));
             }
 
-            AILimitsService.AIUsageStats stats = aiLimitsService.getUserStats(userId);
-            return ResponseEntity.ok(stats);
+            AILimitsService.UsageSnapshot snapshot = aiLimitsService.getUserStatsSnapshot(userId);
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+            // Dashboard polls revalidate with If-None-Match; unchanged stats cost a 304
+            if (snapshot.getETag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(snapshot.getETag())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getETag())
+                    .cacheControl(cacheControl)
+                    .body(snapshot.getStats());
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve usage stats: " + e.getMessage()));
         }
     }
+
+    /**
+     * Weekly or monthly usage rollups overlapping [from, to].
+     * Omit userId for platform-wide totals. Dates are YYYY-MM-DD; defaults cover the last 12 periods.
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<?> getRollups(
+            @RequestParam(required = false) String userId,
+            @RequestParam(defaultValue = "WEEK") String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            AIUsageRollup.Period p = AIUsageRollup.Period.valueOf(period.toUpperCase());
+            LocalDate end = to != null ? LocalDate.parse(to) : LocalDate.now();
+            LocalDate start = from != null ? LocalDate.parse(from) : defaultStart(p, end);
+
+            List<AIUsageRollup> rollups = rollupService.getRollups(userId, p, start, end);
+            return ResponseEntity.ok(rollups);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid period or date range: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve usage rollups: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Summed requests and tokens (overall and per feature) across the rollups overlapping [from, to].
+     */
+    @GetMapping("/rollups/totals")
+    public ResponseEntity<?> getRollupTotals(
+            @RequestParam(required = false) String userId,
+            @RequestParam(defaultValue = "MONTH") String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            AIUsageRollup.Period p = AIUsageRollup.Period.valueOf(period.toUpperCase());
+            LocalDate end = to != null ? LocalDate.parse(to) : LocalDate.now();
+            LocalDate start = from != null ? LocalDate.parse(from) : defaultStart(p, end);
+
+            return ResponseEntity.ok(rollupService.getTotals(userId, p, start, end));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid period or date range: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve usage totals: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Per-feature calls, errors, latency and tokens from the usage event log over [from, to].
+     * Dates are YYYY-MM-DD; defaults to the last 7 days.
+     */
+    @GetMapping("/events/breakdown")
+    public ResponseEntity<?> getEventBreakdown(
+            @RequestParam String userId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDate end = to != null ? LocalDate.parse(to) : LocalDate.now();
+            LocalDate start = from != null ? LocalDate.parse(from) : end.minusDays(6);
+            if (start.isAfter(end)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to"));
+            }
+            return ResponseEntity.ok(eventService.getFeatureBreakdown(userId, start, end));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date range: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve usage events: " + e.getMessage()));
+        }
+    }
+
+    private LocalDate defaultStart(AIUsageRollup.Period period, LocalDate end) {
+        return period == AIUsageRollup.Period.WEEK ? end.minusWeeks(11) : end.minusMonths(11);
+    }
 }
@@ -1,9 +1,16 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
 import com.arribot.model.ChatMessage;
+import com.arribot.model.ChatSession;
+import com.arribot.model.CursorPage;
 import com.arribot.service.ChatService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -36,20 +43,55 @@ public class ChatController {
 
             ChatMessage chatMessage = chatService.sendMessage(message, sessionId, userId);
             return ResponseEntity.ok(chatMessage);
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to process message: " + e.getMessage()));
         }
     }
 
+    /**
+     * Paged oldest first; pass the returned nextCursor as ?cursor= for the next page.
+     */
     @GetMapping("/history/{sessionId}")
-    public ResponseEntity<?> getChatHistory(@PathVariable String sessionId) {
+    public ResponseEntity<?> getChatHistory(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<ChatMessage> history = chatService.getChatHistory(sessionId);
+            CursorPage<ChatMessage> history = chatService.getChatHistory(sessionId, cursor, limit);
             return ResponseEntity.ok(history);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve chat history: " + e.getMessage()));
         }
     }
+
+    /**
+     * The whole session oldest first as NDJSON or SSE, written one message at a time.
+     */
+    @GetMapping(value = "/history/{sessionId}/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ChatMessage> streamChatHistory(@PathVariable String sessionId) {
+        return chatService.streamChatHistory(sessionId);
+    }
+
+    /**
+     * The user's sessions, most recently active first, each with its latest exchange.
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<?> getSessions(
+            @RequestParam String userId,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            List<ChatSession> sessions = chatService.getSessions(userId, limit);
+            return ResponseEntity.ok(sessions);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve chat sessions: " + e.getMessage()));
+        }
+    }
 }
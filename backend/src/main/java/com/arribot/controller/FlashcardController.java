@@ -1,9 +1,16 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.CursorPage;
 import com.arribot.model.Flashcard;
+import com.arribot.model.FlashcardDeck;
 import com.arribot.service.FlashcardService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -36,6 +43,9 @@ public class FlashcardController {
 
             List<Flashcard> flashcards = flashcardService.generateFlashcards(topic, count, userId);
             return ResponseEntity.ok(flashcards);
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to generate flashcards: " + e.getMessage()));
@@ -43,9 +53,9 @@ public class FlashcardController {
     }
 
     @GetMapping("/topic/{topic}")
-    public ResponseEntity<?> getFlashcardsByTopic(@PathVariable String topic) {
+    public ResponseEntity<?> getFlashcardsByTopic(@PathVariable String topic, @RequestParam String userId) {
         try {
-            List<Flashcard> flashcards = flashcardService.getFlashcardsByTopic(topic);
+            List<Flashcard> flashcards = flashcardService.getFlashcardsByTopic(userId, topic);
             return ResponseEntity.ok(flashcards);
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -53,14 +63,49 @@ public class FlashcardController {
         }
     }
 
+    /**
+     * Whole generated decks (flashcards.storage.deck=true), paged newest first.
+     */
+    @GetMapping("/decks")
+    public ResponseEntity<?> getDecks(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<FlashcardDeck> page = flashcardService.getDecks(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Failed to retrieve flashcard decks: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Paged newest first; pass the returned nextCursor as ?cursor= for the next page.
+     */
     @GetMapping
-    public ResponseEntity<?> getAllFlashcards() {
+    public ResponseEntity<?> getAllFlashcards(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Flashcard> flashcards = flashcardService.getAllFlashcards();
-            return ResponseEntity.ok(flashcards);
+            CursorPage<Flashcard> page = flashcardService.getFlashcards(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve flashcards: " + e.getMessage()));
         }
     }
+
+    /**
+     * Every one of the user's flashcards newest first as NDJSON or SSE, written one at a time.
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Flashcard> streamFlashcards(@RequestParam String userId) {
+        return flashcardService.streamFlashcards(userId);
+    }
 }
@@ -1,14 +1,23 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.CursorPage;
 import com.arribot.model.LearningPath;
+import com.arribot.model.LearningPathSummary;
 import com.arribot.service.LearningPathService;
 import com.arribot.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +27,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class LearningPathController {
 
+    // A path has at most 12 weeks of daily milestones
+    private static final int MAX_MILESTONES_PER_BATCH = 100;
+
     @Autowired
     private LearningPathService learningPathService;
 
@@ -54,6 +66,9 @@ public class LearningPathController {
             response.put("data", path);
 
             return ResponseEntity.ok(response);
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             return error("Failed to generate learning path: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -61,25 +76,48 @@ public class LearningPathController {
 
     // ─── GET /api/learning-path ──────────────────────────────────────────────────
     /**
-     * Get all learning paths for the authenticated user.
+     * Get the authenticated user's learning paths, newest first, one page at a time.
+     * Query: ?cursor=<nextCursor from the previous page>&limit=20
      */
     @GetMapping
-    public ResponseEntity<?> getUserPaths(HttpServletRequest request) {
+    public ResponseEntity<?> getUserPaths(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
         try {
             String userId = extractUserId(request);
-            List<LearningPath> paths = learningPathService.getUserPaths(userId);
+            CursorPage<LearningPathSummary> page = learningPathService.getUserPaths(userId, cursor, limit);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", paths);
-            response.put("total", paths.size());
+            response.put("data", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("total", learningPathService.countUserPaths(userId));
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return error("Failed to fetch learning paths: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // ─── GET /api/learning-path/stream ─────────────────────────────────────────
+    /**
+     * All of the user's path summaries newest first as NDJSON or SSE, written one at a time.
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<LearningPathSummary>> streamUserPaths(HttpServletRequest request) {
+        String userId;
+        try {
+            userId = extractUserId(request);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(learningPathService.streamUserPaths(userId));
+    }
+
     // ─── GET /api/learning-path/{id} ────────────────────────────────────────────
     /**
      * Get a specific learning path by ID.
@@ -105,7 +143,7 @@ public class LearningPathController {
     // ─── PATCH /api/learning-path/{id}/milestone ─────────────────────────────────
     /**
      * Mark a daily milestone as completed or not.
-     * Body: { "week": 1, "day": 3, "completed": true }
+     * Body: { "week": 1, "day": 3, "completed": true, "version": 4 }  (version optional)
      */
     @PatchMapping("/{id}/milestone")
     public ResponseEntity<?> updateMilestone(
@@ -119,7 +157,8 @@ public class LearningPathController {
             int day = (int) body.get("day");
             boolean completed = (boolean) body.get("completed");
 
-            LearningPath updated = learningPathService.updateMilestoneComplete(id, userId, week, day, completed);
+            LearningPath updated = learningPathService.updateMilestoneComplete(
+                    id, userId, week, day, completed, expectedVersion(body));
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -127,11 +166,61 @@ public class LearningPathController {
             response.put("data", updated);
 
             return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            return error(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return error("Failed to update milestone: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // ─── PATCH /api/learning-path/{id}/milestones ────────────────────────────────
+    /**
+     * Toggle several milestones in one write.
+     * Body: { "milestones": [ { "week": 1, "day": 3, "completed": true }, ... ], "version": 4 }  (version optional)
+     */
+    @PatchMapping("/{id}/milestones")
+    public ResponseEntity<?> updateMilestones(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> body,
+            HttpServletRequest request) {
+        try {
+            String userId = extractUserId(request);
+
+            if (!(body.get("milestones") instanceof List<?> items) || items.isEmpty()) {
+                return error("milestones must be a non-empty array", HttpStatus.BAD_REQUEST);
+            }
+            if (items.size() > MAX_MILESTONES_PER_BATCH) {
+                return error("At most " + MAX_MILESTONES_PER_BATCH + " milestones per request", HttpStatus.BAD_REQUEST);
+            }
+
+            List<LearningPathService.MilestoneToggle> toggles = new ArrayList<>();
+            for (Object item : items) {
+                Map<?, ?> m = (Map<?, ?>) item;
+                toggles.add(new LearningPathService.MilestoneToggle(
+                        ((Number) m.get("week")).intValue(),
+                        ((Number) m.get("day")).intValue(),
+                        Boolean.TRUE.equals(m.get("completed"))));
+            }
+
+            LearningPath updated = learningPathService.updateMilestones(id, userId, toggles, expectedVersion(body));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", toggles.size() + " milestones updated successfully");
+            response.put("data", updated);
+
+            return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            return error(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+            return error("Invalid milestones: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return error("Failed to update milestones: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // ─── DELETE /api/learning-path/{id} ─────────────────────────────────────────
     /**
      * Delete a learning path by ID.
@@ -154,6 +243,10 @@ public class LearningPathController {
 
     // ─── Private helpers ─────────────────────────────────────────────────────────
 
+    private static Long expectedVersion(Map<String, Object> body) {
+        return body.get("version") instanceof Number n ? n.longValue() : null;
+    }
+
     private String extractUserId(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -1,9 +1,15 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.CursorPage;
 import com.arribot.model.Quiz;
 import com.arribot.service.QuizService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -38,6 +44,9 @@ public class QuizController {
 
             Quiz quiz = quizService.generateQuiz(topic, questionCount, userId);
             return ResponseEntity.ok(quiz);
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to generate quiz: " + e.getMessage()));
@@ -45,9 +54,9 @@ public class QuizController {
     }
 
     @GetMapping("/topic/{topic}")
-    public ResponseEntity<?> getQuizzesByTopic(@PathVariable String topic) {
+    public ResponseEntity<?> getQuizzesByTopic(@PathVariable String topic, @RequestParam String userId) {
         try {
-            List<Quiz> quizzes = quizService.getQuizzesByTopic(topic);
+            List<Quiz> quizzes = quizService.getQuizzesByTopic(userId, topic);
             return ResponseEntity.ok(quizzes);
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -69,14 +78,30 @@ public class QuizController {
         }
     }
 
+    /**
+     * Paged newest first; pass the returned nextCursor as ?cursor= for the next page.
+     */
     @GetMapping
-    public ResponseEntity<?> getAllQuizzes() {
+    public ResponseEntity<?> getAllQuizzes(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Quiz> quizzes = quizService.getAllQuizzes();
-            return ResponseEntity.ok(quizzes);
+            CursorPage<Quiz> page = quizService.getQuizzes(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve quizzes: " + e.getMessage()));
         }
     }
+
+    /**
+     * Every one of the user's quizzes newest first as NDJSON or SSE, written one at a time.
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Quiz> streamQuizzes(@RequestParam String userId) {
+        return quizService.streamQuizzes(userId);
+    }
 }
@@ -1,20 +1,28 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.CursorPage;
+import com.arribot.model.IngestionJob;
 import com.arribot.model.Resume;
+import com.arribot.model.ResumeSummary;
 import com.arribot.model.SkillAnalysis;
 import com.arribot.model.User;
 import com.arribot.repository.UserRepository;
 import com.arribot.service.ResumeService;
 import com.arribot.service.SkillAnalysisService;
+import com.arribot.service.ingestion.ResumeIngestionService;
 import com.arribot.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -29,6 +37,9 @@ public class ResumeController {
     @Autowired
     private SkillAnalysisService skillAnalysisService;
 
+    @Autowired
+    private ResumeIngestionService ingestionService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -36,11 +47,14 @@ public class ResumeController {
     private JwtUtil jwtUtil;
 
     /**
-     * Upload a resume
+     * Upload a resume. Answers 202 with a job id as soon as the file is stored; extraction,
+     * saving and (with targetRole) analysis run in the background. Follow the job at
+     * /jobs/{jobId} or /jobs/{jobId}/events.
      */
     @PostMapping("/upload")
     public ResponseEntity<?> uploadResume(
             @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String targetRole,
             @RequestHeader("Authorization") String authHeader) {
         
         try {
@@ -50,17 +64,17 @@ public class ResumeController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Upload resume
-            Resume resume = resumeService.uploadResume(file, user);
+            IngestionJob job = ingestionService.submit(file, user, targetRole);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("resumeId", resume.getId());
-            response.put("fileName", resume.getFileName());
-            response.put("uploadedAt", resume.getUploadedAt());
-            response.put("message", "Resume uploaded successfully");
+            response.put("jobId", job.getId());
+            response.put("resumeId", job.getResumeId());
+            response.put("fileName", job.getFileName());
+            response.put("status", job.getStatus());
+            response.put("message", "Resume upload accepted for processing");
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
         } catch (IllegalArgumentException e) {
             Map<String, Object> response = new HashMap<>();
@@ -68,6 +82,12 @@ public class ResumeController {
             response.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
 
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -77,10 +97,72 @@ public class ResumeController {
     }
 
     /**
-     * Get all resumes for the authenticated user
+     * Status of an upload job: QUEUED, EXTRACTING, PERSISTING, ANALYZING, COMPLETED or FAILED
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(
+            @PathVariable String jobId,
+            @RequestHeader("Authorization") String authHeader) {
+        try {
+            // Extract user from JWT
+            String token = authHeader.replace("Bearer ", "");
+            String email = jwtUtil.extractEmail(token);
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            Optional<IngestionJob> job = ingestionService.getJob(jobId, user);
+            if (job.isEmpty()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "Job not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("job", job.get());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to fetch job: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * The job as SSE, one event per state change, closing once it is COMPLETED or FAILED
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<IngestionJob>> watchJob(
+            @PathVariable String jobId,
+            @RequestHeader("Authorization") String authHeader) {
+        Optional<User> user;
+        try {
+            String token = authHeader.replace("Bearer ", "");
+            user = userRepository.findByEmail(jwtUtil.extractEmail(token));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (ingestionService.getJob(jobId, user.get()).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(ingestionService.watchJob(jobId, user.get()));
+    }
+
+    /**
+     * Get the authenticated user's resumes, newest first, one page at a time
+     * Query: ?cursor=<nextCursor from the previous page>&limit=20
      */
     @GetMapping("/list")
-    public ResponseEntity<?> listResumes(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> listResumes(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             // Extract user from JWT
             String token = authHeader.replace("Bearer ", "");
@@ -88,15 +170,22 @@ public class ResumeController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            List<Resume> resumes = resumeService.getUserResumes(user);
+            CursorPage<ResumeSummary> page = resumeService.getUserResumes(user, cursor, limit);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("resumes", resumes);
-            response.put("count", resumes.size());
+            response.put("resumes", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("count", resumeService.getResumeCount(user));
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             e.printStackTrace(); // Log full stack trace
             Map<String, Object> response = new HashMap<>();
@@ -107,6 +196,22 @@ public class ResumeController {
         }
     }
 
+    /**
+     * All of the user's resume summaries newest first as NDJSON or SSE, written one at a time
+     */
+    @GetMapping(value = "/list/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<Flux<ResumeSummary>> streamResumes(@RequestHeader("Authorization") String authHeader) {
+        Optional<User> user;
+        try {
+            String token = authHeader.replace("Bearer ", "");
+            user = userRepository.findByEmail(jwtUtil.extractEmail(token));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return user.map(u -> ResponseEntity.ok(resumeService.streamUserResumes(u)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
     /**
      * Get a specific resume by ID
      */
@@ -223,6 +328,9 @@ public class ResumeController {
 
             return ResponseEntity.ok(response);
 
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
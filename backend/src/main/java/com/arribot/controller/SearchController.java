@@ -0,0 +1,42 @@
+package com.arribot.controller;
+
+import com.arribot.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Ranked search over the user's flashcards, decks, quizzes and summaries.
+     * Query: ?userId=&q=binary search&type=flashcard,quiz&page=0&size=20
+     */
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam String userId,
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            SearchService.Page results = searchService.search(userId, q, type, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Search failed: " + e.getMessage()));
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.arribot.controller;
 
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.CursorPage;
 import com.arribot.model.Summary;
 import com.arribot.service.SummaryService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -35,20 +40,48 @@ public class SummaryController {
 
             Summary summary = summaryService.summarizeText(text, userId);
             return ResponseEntity.ok(summary);
+        } catch (AILimitExceededException | RateLimitExceededException | AIOverloadedException e) {
+            // Let AIExceptionHandler answer with 429 / 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to summarize text: " + e.getMessage()));
         }
     }
 
+    /**
+     * How many summarize requests were answered from an identical earlier text (hits)
+     * versus sent to the model (misses), since startup.
+     */
+    @GetMapping("/dedup")
+    public ResponseEntity<?> getDedupStats() {
+        return ResponseEntity.ok(summaryService.getDedupStats());
+    }
+
+    /**
+     * Paged newest first; pass the returned nextCursor as ?cursor= for the next page.
+     */
     @GetMapping
-    public ResponseEntity<?> getAllSummaries() {
+    public ResponseEntity<?> getAllSummaries(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Summary> summaries = summaryService.getAllSummaries();
-            return ResponseEntity.ok(summaries);
+            CursorPage<Summary> page = summaryService.getSummaries(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Failed to retrieve summaries: " + e.getMessage()));
         }
     }
+
+    /**
+     * Every one of the user's summaries newest first as NDJSON or SSE, written one at a time.
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Summary> streamSummaries(@RequestParam String userId) {
+        return summaryService.streamSummaries(userId);
+    }
 }
@@ -1,9 +1,11 @@
 package com.arribot.exception;
 
 import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
 import com.arribot.exception.RateLimitExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -39,6 +41,19 @@ public class AIExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(AIOverloadedException.class)
+    public ResponseEntity<?> handleAIOverloaded(AIOverloadedException e) {
+        logger.warn("AI request shed: {} (retry after {}s)", e.getMessage(), e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                    "error", "AI_OVERLOADED",
+                    "message", e.getMessage(),
+                    "retryAfter", e.getRetryAfterSeconds() + " seconds",
+                    "status", 503
+                ));
+    }
+
     @ExceptionHandler(IOException.class)
     public ResponseEntity<?> handleGroqAPIError(IOException e) {
         logger.error("AI service error", e);
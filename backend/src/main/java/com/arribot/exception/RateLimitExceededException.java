@@ -5,7 +5,19 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
 public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
     public RateLimitExceededException(String message) {
+        this(message, 60);
+    }
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
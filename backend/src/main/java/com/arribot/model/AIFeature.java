@@ -4,5 +4,7 @@ public enum AIFeature {
     CHAT,
     FLASHCARDS,
     QUIZ,
-    SUMMARY
+    SUMMARY,
+    LEARNING_PATH,
+    RESUME_ANALYSIS
 }
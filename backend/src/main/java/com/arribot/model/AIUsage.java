@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Document(collection = "ai_usage")
 @CompoundIndex(name = "user_date_idx", def = "{'userId': 1, 'date': 1}", unique = true)
+@CompoundIndex(name = "created_id_idx", def = "{'createdAt': 1, '_id': 1}")
 public class AIUsage {
 
     @Id
@@ -26,6 +27,7 @@ public class AIUsage {
     private Integer quizzesGenerated = 0;
     private Integer summariesGenerated = 0;
     private Integer learningPathsGenerated = 0;
+    private Integer resumeAnalysesGenerated = 0;
     private Integer totalRequests = 0;
 
     // ── Groq token usage ──────────────────────────────────────────────────────
@@ -34,6 +36,10 @@ public class AIUsage {
     private Long totalTokensUsed = 0L;
 
     private LocalDateTime lastRequestTime;
+
+    // Incremented by every write, so the order of two returned documents is the order the writes applied
+    private Long revision = 0L;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -74,6 +80,9 @@ public class AIUsage {
     public Integer getLearningPathsGenerated() { return learningPathsGenerated; }
     public void setLearningPathsGenerated(Integer learningPathsGenerated) { this.learningPathsGenerated = learningPathsGenerated; }
 
+    public Integer getResumeAnalysesGenerated() { return resumeAnalysesGenerated; }
+    public void setResumeAnalysesGenerated(Integer resumeAnalysesGenerated) { this.resumeAnalysesGenerated = resumeAnalysesGenerated; }
+
     public Integer getTotalRequests() { return totalRequests; }
     public void setTotalRequests(Integer totalRequests) { this.totalRequests = totalRequests; }
 
@@ -92,6 +101,9 @@ public class AIUsage {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public Long getRevision() { return revision; }
+    public void setRevision(Long revision) { this.revision = revision; }
+
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
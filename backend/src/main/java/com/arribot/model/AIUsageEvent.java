@@ -0,0 +1,85 @@
+package com.arribot.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.LocalDateTime;
+
+/**
+ * One LLM call, written once and never updated.
+ *
+ * Stored in a time-series collection bucketed by meta (user and feature), so a user's
+ * events for a time range sit in a few contiguous buckets. {@link AIUsage} token
+ * counters are derived from these events.
+ */
+@TimeSeries(collection = "ai_usage_events", timeField = "timestamp", metaField = "meta",
+        granularity = Granularity.SECONDS)
+public class AIUsageEvent {
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    @Id
+    private final String id;
+
+    private final LocalDateTime timestamp;
+    private final Meta meta;
+    private final String model;
+    private final String outcome;
+    private final long latencyMs;
+    private final long promptTokens;
+    private final long completionTokens;
+    private final long totalTokens;
+
+    public AIUsageEvent(String id, LocalDateTime timestamp, Meta meta, String model, String outcome,
+                        long latencyMs, long promptTokens, long completionTokens, long totalTokens) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.meta = meta;
+        this.model = model;
+        this.outcome = outcome;
+        this.latencyMs = latencyMs;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.totalTokens = totalTokens;
+    }
+
+    public static AIUsageEvent success(String userId, AIFeature feature, String model, long latencyMs,
+                                       GroqResponse response) {
+        return new AIUsageEvent(null, LocalDateTime.now(), new Meta(userId, feature), model, SUCCESS, latencyMs,
+                response.getPromptTokens(), response.getCompletionTokens(), response.getTotalTokens());
+    }
+
+    public static AIUsageEvent error(String userId, AIFeature feature, String model, long latencyMs) {
+        return new AIUsageEvent(null, LocalDateTime.now(), new Meta(userId, feature), model, ERROR, latencyMs,
+                0L, 0L, 0L);
+    }
+
+    public String getId() { return id; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public Meta getMeta() { return meta; }
+    public String getModel() { return model; }
+    public String getOutcome() { return outcome; }
+    public long getLatencyMs() { return latencyMs; }
+    public long getPromptTokens() { return promptTokens; }
+    public long getCompletionTokens() { return completionTokens; }
+    public long getTotalTokens() { return totalTokens; }
+
+    /**
+     * The series an event belongs to; MongoDB groups events into buckets by this value.
+     */
+    public static class Meta {
+
+        private final String userId;
+        private final AIFeature feature;
+
+        public Meta(String userId, AIFeature feature) {
+            this.userId = userId;
+            this.feature = feature;
+        }
+
+        public String getUserId() { return userId; }
+        public AIFeature getFeature() { return feature; }
+    }
+}
@@ -0,0 +1,85 @@
+package com.arribot.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated AI usage for one user (or the whole platform) over one week or month.
+ * Maintained incrementally alongside the daily {@link AIUsage} documents.
+ */
+@Document(collection = "ai_usage_rollups")
+@CompoundIndex(name = "user_period_start_idx", def = "{'userId': 1, 'period': 1, 'periodStart': 1}", unique = true)
+public class AIUsageRollup {
+
+    /** userId used for platform-wide rollups */
+    public static final String ALL_USERS = "_all";
+
+    public enum Period {
+        WEEK,
+        MONTH
+    }
+
+    @Id
+    private String id;
+
+    private String userId;
+    private Period period;
+    private String periodKey;   // 2026-W42 or 2026-10
+    private String periodStart; // YYYY-MM-DD of the first day in the period
+
+    // ── Request counts ────────────────────────────────────────────────────────
+    private Long totalRequests = 0L;
+    private Map<String, Long> featureRequests = new HashMap<>();
+
+    // ── Groq token usage ──────────────────────────────────────────────────────
+    private Long promptTokensUsed = 0L;
+    private Long completionTokensUsed = 0L;
+    private Long totalTokensUsed = 0L;
+    private Map<String, Long> featureTokens = new HashMap<>();
+
+    private LocalDateTime updatedAt;
+
+    public AIUsageRollup() {}
+
+    // ── Getters and Setters ────────────────────────────────────────────────────
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Period getPeriod() { return period; }
+    public void setPeriod(Period period) { this.period = period; }
+
+    public String getPeriodKey() { return periodKey; }
+    public void setPeriodKey(String periodKey) { this.periodKey = periodKey; }
+
+    public String getPeriodStart() { return periodStart; }
+    public void setPeriodStart(String periodStart) { this.periodStart = periodStart; }
+
+    public Long getTotalRequests() { return totalRequests; }
+    public void setTotalRequests(Long totalRequests) { this.totalRequests = totalRequests; }
+
+    public Map<String, Long> getFeatureRequests() { return featureRequests; }
+    public void setFeatureRequests(Map<String, Long> featureRequests) { this.featureRequests = featureRequests; }
+
+    public Long getPromptTokensUsed() { return promptTokensUsed; }
+    public void setPromptTokensUsed(Long promptTokensUsed) { this.promptTokensUsed = promptTokensUsed; }
+
+    public Long getCompletionTokensUsed() { return completionTokensUsed; }
+    public void setCompletionTokensUsed(Long completionTokensUsed) { this.completionTokensUsed = completionTokensUsed; }
+
+    public Long getTotalTokensUsed() { return totalTokensUsed; }
+    public void setTotalTokensUsed(Long totalTokensUsed) { this.totalTokensUsed = totalTokensUsed; }
+
+    public Map<String, Long> getFeatureTokens() { return featureTokens; }
+    public void setFeatureTokens(Map<String, Long> featureTokens) { this.featureTokens = featureTokens; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,63 @@
+package com.arribot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Up to chat.bucket.size consecutive exchanges of one session in a single document.
+ *
+ * Messages are appended with $push to the session's open bucket (count below the
+ * bucket size); a full bucket is left alone and the next append upserts a new one.
+ * Buckets of a session are ordered by _id, so reading a history is a handful of
+ * document reads instead of one per message.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "chat_buckets")
+@CompoundIndex(name = "session_id_idx", def = "{'sessionId': 1, '_id': 1}")
+@CompoundIndex(name = "user_last_idx", def = "{'userId': 1, 'lastTimestamp': -1}")
+@CompoundIndex(name = "last_id_idx", def = "{'lastTimestamp': 1, '_id': 1}")
+public class ChatBucket {
+
+    @Id
+    private String id;
+
+    private String sessionId;
+    private String userId;
+    private int count;
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+    private List<Entry> messages;
+
+    @Data
+    @NoArgsConstructor
+    public static class Entry {
+        private String id;
+        private String userMessage;
+        private CompressedText aiResponse;
+        private LocalDateTime timestamp;
+
+        public Entry(String id, String userMessage, String aiResponse, LocalDateTime timestamp) {
+            this.id = id;
+            this.userMessage = userMessage;
+            this.aiResponse = CompressedText.of(aiResponse);
+            this.timestamp = timestamp;
+        }
+
+        public String getAiResponse() {
+            return CompressedText.text(aiResponse);
+        }
+
+        public void setAiResponse(String aiResponse) {
+            this.aiResponse = CompressedText.of(aiResponse);
+        }
+    }
+}
@@ -3,21 +3,21 @@ package com.arribot.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
+/**
+ * One chat exchange as returned by the API. Stored as an entry of a {@link ChatBucket}.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "chat_messages")
 public class ChatMessage {
 
-    @Id
     private String id;
 
     private String sessionId;
+    private String userId;
     private String userMessage;
     private String aiResponse;
     private LocalDateTime timestamp;
@@ -0,0 +1,19 @@
+package com.arribot.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's chat session with its most recent exchange, for the session list.
+ */
+@Data
+@NoArgsConstructor
+public class ChatSession {
+
+    private String sessionId;
+    private long messageCount;
+    private LocalDateTime lastTimestamp;
+    private ChatBucket.Entry lastMessage;
+}
@@ -0,0 +1,58 @@
+package com.arribot.model;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A large text field that may be stored deflated (see {@link com.arribot.config.MongoConfig}).
+ *
+ * Values read compressed keep their bytes until {@link #toString()} is first
+ * called, so loading a document whose text is never looked at costs no inflation.
+ */
+public final class CompressedText {
+
+    private String text;
+    private byte[] compressed;
+    private Function<byte[], String> inflater;
+
+    private CompressedText(String text) {
+        this.text = text;
+    }
+
+    private CompressedText(byte[] compressed, Function<byte[], String> inflater) {
+        this.compressed = compressed;
+        this.inflater = inflater;
+    }
+
+    public static CompressedText of(String text) {
+        return text == null ? null : new CompressedText(text);
+    }
+
+    public static CompressedText deferred(byte[] compressed, Function<byte[], String> inflater) {
+        return new CompressedText(compressed, inflater);
+    }
+
+    public static String text(CompressedText value) {
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (text == null) {
+            text = inflater.apply(compressed);
+            compressed = null;
+            inflater = null;
+        }
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressedText other && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(toString());
+    }
+}
@@ -0,0 +1,24 @@
+package com.arribot.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Pass nextCursor back as ?cursor= to
+ * fetch the following page; it is null once hasMore is false.
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public CursorPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+}
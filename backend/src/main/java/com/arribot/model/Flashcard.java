@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,17 +13,23 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "flashcards")
+@CompoundIndex(name = "user_topic_created_idx", def = "{'userId': 1, 'topic': 1, 'createdAt': -1}")
+@CompoundIndex(name = "user_created_id_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "user_text_idx", def = "{'userId': 1, 'topic': 'text', 'question': 'text', 'answer': 'text'}")
 public class Flashcard {
 
     @Id
     private String id;
 
+    private String userId;
+
     private String topic;
     private String question;
     private String answer;
     private LocalDateTime createdAt;
 
-    public Flashcard(String topic, String question, String answer) {
+    public Flashcard(String userId, String topic, String question, String answer) {
+        this.userId = userId;
         this.topic = topic;
         this.question = question;
         this.answer = answer;
@@ -0,0 +1,49 @@
+package com.arribot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A whole generated deck stored as one document (flashcards.storage.deck=true),
+ * so writing or reading a deck is a single round trip regardless of its size.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "flashcard_decks")
+@CompoundIndex(name = "user_topic_created_idx", def = "{'userId': 1, 'topic': 1, 'createdAt': -1}")
+@CompoundIndex(name = "user_created_id_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "user_text_idx", def = "{'userId': 1, 'topic': 'text', 'cards.question': 'text', 'cards.answer': 'text'}")
+public class FlashcardDeck {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String topic;
+    private List<Card> cards;
+    private LocalDateTime createdAt;
+
+    public FlashcardDeck(String userId, String topic, List<Card> cards) {
+        this.userId = userId;
+        this.topic = topic;
+        this.cards = cards;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Card {
+        private String question;
+        private String answer;
+    }
+}
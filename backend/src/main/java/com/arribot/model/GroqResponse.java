@@ -10,16 +10,27 @@ public class GroqResponse {
     private long promptTokens;
     private long completionTokens;
     private long totalTokens;
+    private String model;
 
     public GroqResponse(String text, long promptTokens, long completionTokens, long totalTokens) {
+        this(text, promptTokens, completionTokens, totalTokens, null);
+    }
+
+    public GroqResponse(String text, long promptTokens, long completionTokens, long totalTokens, String model) {
         this.text = text;
         this.promptTokens = promptTokens;
         this.completionTokens = completionTokens;
         this.totalTokens = totalTokens;
+        this.model = model;
     }
 
     public String getText() { return text; }
     public long getPromptTokens() { return promptTokens; }
     public long getCompletionTokens() { return completionTokens; }
     public long getTotalTokens() { return totalTokens; }
+
+    /**
+     * Model that served the call, as reported by the API; null if unknown.
+     */
+    public String getModel() { return model; }
 }
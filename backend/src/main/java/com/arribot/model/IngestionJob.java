@@ -0,0 +1,65 @@
+package com.arribot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resume upload being worked through extract → persist → (optional) analyze.
+ *
+ * Kept in Mongo so a job outlives the process that accepted it: a worker holds a job
+ * only until leaseUntil, and a job whose lease ran out is queued again. resumeId is
+ * fixed when the job is created, so a retried persist overwrites instead of duplicating.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "ingestion_jobs")
+@CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}")
+@CompoundIndex(name = "status_lease_idx", def = "{'status': 1, 'leaseUntil': 1}")
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, EXTRACTING, PERSISTING, ANALYZING, COMPLETED, FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    @Id
+    private String id;
+
+    private String userId;
+    private String fileName;
+
+    @JsonIgnore
+    private String filePath;
+
+    @JsonIgnore
+    private String fileHash;
+
+    private String resumeId;
+
+    // Analyze after persisting when set
+    private String targetRole;
+    private String analysisId;
+
+    private Status status;
+    private String error;
+    private int attempts;
+    private LocalDateTime leaseUntil;
+
+    // A queued job deferred by a shed or rate-limited AI call is not claimed before this
+    private LocalDateTime notBefore;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Only set on terminal jobs; the retention TTL index counts from it
+    private LocalDateTime finishedAt;
+}
@@ -1,19 +1,20 @@
 package com.arribot.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "learning_paths")
+@CompoundIndex(name = "user_created_id_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 public class LearningPath {
 
     @Id
     private String id;
 
-    @Indexed
     private String userId;
 
     private String goal;
@@ -25,6 +26,10 @@ public class LearningPath {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Bumped by every milestone update; clients may send it back to detect concurrent edits
+    @Version
+    private Long version;
+
     public LearningPath() {}
 
     public LearningPath(String userId, String goal, int totalWeeks, String difficultyLevel,
@@ -66,4 +71,7 @@ public class LearningPath {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,50 @@
+package com.arribot.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view projection of a {@link LearningPath}: header fields plus progress
+ * counts computed in Mongo, without the weeks and days themselves.
+ */
+public class LearningPathSummary {
+
+    private String id;
+    private String goal;
+    private String description;
+    private int totalWeeks;
+    private String difficultyLevel;
+    private int totalDays;
+    private int completedDays;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public LearningPathSummary() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getGoal() { return goal; }
+    public void setGoal(String goal) { this.goal = goal; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public int getTotalWeeks() { return totalWeeks; }
+    public void setTotalWeeks(int totalWeeks) { this.totalWeeks = totalWeeks; }
+
+    public String getDifficultyLevel() { return difficultyLevel; }
+    public void setDifficultyLevel(String difficultyLevel) { this.difficultyLevel = difficultyLevel; }
+
+    public int getTotalDays() { return totalDays; }
+    public void setTotalDays(int totalDays) { this.totalDays = totalDays; }
+
+    public int getCompletedDays() { return completedDays; }
+    public void setCompletedDays(int completedDays) { this.completedDays = completedDays; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
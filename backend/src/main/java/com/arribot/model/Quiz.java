@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -13,16 +14,22 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "quizzes")
+@CompoundIndex(name = "user_topic_created_idx", def = "{'userId': 1, 'topic': 1, 'createdAt': -1}")
+@CompoundIndex(name = "user_created_id_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "user_text_idx", def = "{'userId': 1, 'topic': 'text', 'questions.question': 'text', 'questions.options': 'text', 'questions.explanation': 'text'}")
 public class Quiz {
 
     @Id
     private String id;
 
+    private String userId;
+
     private String topic;
     private List<QuizQuestion> questions;
     private LocalDateTime createdAt;
 
-    public Quiz(String topic, List<QuizQuestion> questions) {
+    public Quiz(String userId, String topic, List<QuizQuestion> questions) {
+        this.userId = userId;
         this.topic = topic;
         this.questions = questions;
         this.createdAt = LocalDateTime.now();
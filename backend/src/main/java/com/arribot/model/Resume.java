@@ -1,12 +1,14 @@
 package com.arribot.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "resumes")
+@CompoundIndex(name = "user_uploaded_id_idx", def = "{'userId': 1, 'uploadedAt': -1, '_id': -1}")
 public class Resume {
 
     @Id
@@ -20,7 +22,15 @@ public class Resume {
     private LocalDateTime uploadedAt;
 
     @JsonIgnore
-    private String extractedText;
+    private CompressedText extractedText;
+
+    // SHA-256 of extractedText; identical uploads share cached skill analyses
+    @JsonIgnore
+    private String textHash;
+
+    // SHA-256 of the uploaded file's bytes: its key in the content store
+    @JsonIgnore
+    private String fileHash;
 
     private String analysisResult;
 
@@ -78,11 +88,27 @@ public class Resume {
     }
 
     public String getExtractedText() {
-        return extractedText;
+        return CompressedText.text(extractedText);
     }
 
     public void setExtractedText(String extractedText) {
-        this.extractedText = extractedText;
+        this.extractedText = CompressedText.of(extractedText);
+    }
+
+    public String getTextHash() {
+        return textHash;
+    }
+
+    public void setTextHash(String textHash) {
+        this.textHash = textHash;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
     }
 
     public String getAnalysisResult() {
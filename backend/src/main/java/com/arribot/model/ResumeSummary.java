@@ -0,0 +1,25 @@
+package com.arribot.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view projection of a {@link Resume}, read without the extracted text.
+ */
+public class ResumeSummary {
+
+    private String id;
+    private String fileName;
+    private LocalDateTime uploadedAt;
+
+    public ResumeSummary() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+}
@@ -0,0 +1,54 @@
+package com.arribot.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One ranked search result. Highlights carry match offsets into their fragment
+ * rather than markup, so the client decides how to render them.
+ */
+public class SearchHit {
+
+    private String type;
+    private String id;
+    private String title;
+    private double score;
+    private LocalDateTime createdAt;
+    private List<Highlight> highlights;
+
+    public SearchHit() {}
+
+    public SearchHit(String type, String id, String title, double score,
+                     LocalDateTime createdAt, List<Highlight> highlights) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.score = score;
+        this.createdAt = createdAt;
+        this.highlights = highlights;
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public List<Highlight> getHighlights() { return highlights; }
+    public void setHighlights(List<Highlight> highlights) { this.highlights = highlights; }
+
+    /**
+     * @param matches [start, end) character ranges of matched terms within fragment
+     */
+    public record Highlight(String field, String fragment, List<int[]> matches) {}
+}
@@ -1,28 +1,35 @@
 package com.arribot.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "skill_analyses")
+@CompoundIndex(name = "resume_id_analyzed_idx", def = "{'resumeId': 1, 'analyzedAt': -1}")
+@CompoundIndex(name = "text_role_analyzed_idx", def = "{'resumeTextHash': 1, 'normalizedRole': 1, 'analyzedAt': -1}")
 public class SkillAnalysis {
 
     @Id
     private String id;
 
-    @DBRef
-    private Resume resume;
+    // Plain id instead of a DBRef, so loading an analysis never pulls in the resume text
+    private String resumeId;
+    private String userId;
+
+    // Cache key: analyses are reused for any resume with the same text and target role
+    private String resumeTextHash;
+    private String normalizedRole;
 
     private List<String> detectedSkills = new ArrayList<>();
     private List<String> missingSkills = new ArrayList<>();
     private List<String> recommendedSkills = new ArrayList<>();
     private String targetRole;
     private Integer experienceYears;
-    private String learningPath; // JSON string
+    private CompressedText learningPath; // JSON string
     private LocalDateTime analyzedAt;
     
     // Quality Metrics (0-100)
@@ -43,9 +50,12 @@ public class SkillAnalysis {
         this.analyzedAt = LocalDateTime.now();
     }
 
-    public SkillAnalysis(Resume resume, String targetRole) {
-        this.resume = resume;
+    public SkillAnalysis(Resume resume, String resumeTextHash, String targetRole, String normalizedRole) {
+        this.resumeId = resume.getId();
+        this.userId = resume.getUserId();
+        this.resumeTextHash = resumeTextHash;
         this.targetRole = targetRole;
+        this.normalizedRole = normalizedRole;
         this.analyzedAt = LocalDateTime.now();
     }
 
@@ -58,12 +68,36 @@ public class SkillAnalysis {
         this.id = id;
     }
 
-    public Resume getResume() {
-        return resume;
+    public String getResumeId() {
+        return resumeId;
+    }
+
+    public void setResumeId(String resumeId) {
+        this.resumeId = resumeId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getResumeTextHash() {
+        return resumeTextHash;
+    }
+
+    public void setResumeTextHash(String resumeTextHash) {
+        this.resumeTextHash = resumeTextHash;
+    }
+
+    public String getNormalizedRole() {
+        return normalizedRole;
     }
 
-    public void setResume(Resume resume) {
-        this.resume = resume;
+    public void setNormalizedRole(String normalizedRole) {
+        this.normalizedRole = normalizedRole;
     }
 
     public List<String> getDetectedSkills() {
@@ -107,11 +141,11 @@ public class SkillAnalysis {
     }
 
     public String getLearningPath() {
-        return learningPath;
+        return CompressedText.text(learningPath);
     }
 
     public void setLearningPath(String learningPath) {
-        this.learningPath = learningPath;
+        this.learningPath = CompressedText.of(learningPath);
     }
 
     public LocalDateTime getAnalyzedAt() {
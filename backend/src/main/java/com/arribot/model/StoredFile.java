@@ -0,0 +1,45 @@
+package com.arribot.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One uploaded file in the content-addressed store, keyed by the SHA-256 of its bytes.
+ *
+ * refs holds the ids of the resumes using the file; it is a set ($addToSet / $pull), so a
+ * retried upload or delete never miscounts. The text PDFBox extracted from the file is
+ * kept here, so a re-upload of the same bytes is never parsed again.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "stored_files")
+public class StoredFile {
+
+    @Id
+    private String hash;
+
+    private String path;
+    private long size;
+    private List<String> refs = new ArrayList<>();
+    private CompressedText extractedText;
+    private LocalDateTime createdAt;
+
+    // Unreferenced files are collected once this is older than the grace period
+    @Indexed(name = "last_referenced_idx")
+    private LocalDateTime lastReferencedAt;
+
+    public String getExtractedText() {
+        return CompressedText.text(extractedText);
+    }
+
+    public void setExtractedText(String extractedText) {
+        this.extractedText = CompressedText.of(extractedText);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,17 +14,32 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "summaries")
+@CompoundIndex(name = "user_created_id_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+// user_source_idx, unique on (userId, sourceHash), is created by SummaryService once older duplicates are released
+@CompoundIndex(name = "user_text_idx", def = "{'userId': 1, 'summarizedText': 'text'}")
+// Walked by the retention archiver
+@CompoundIndex(name = "created_id_idx", def = "{'createdAt': -1, '_id': -1}")
 public class Summary {
     
     @Id
     private String id;
-    
-    private String originalText;
+
+    private String userId;
+
+    // The original text lives once in summary_sources under this hash
+    private String sourceHash;
+    private int originalWordCount;
     private String summarizedText;
     private LocalDateTime createdAt;
+
+    // Only filled on the response to the request that submitted it
+    @Transient
+    private String originalText;
     
-    public Summary(String originalText, String summarizedText) {
-        this.originalText = originalText;
+    public Summary(String userId, String sourceHash, int originalWordCount, String summarizedText) {
+        this.userId = userId;
+        this.sourceHash = sourceHash;
+        this.originalWordCount = originalWordCount;
         this.summarizedText = summarizedText;
         this.createdAt = LocalDateTime.now();
     }
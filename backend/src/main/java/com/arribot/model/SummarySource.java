@@ -0,0 +1,41 @@
+package com.arribot.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A summarized text stored once, keyed by the SHA-256 of its normalized form.
+ *
+ * The hash is the _id, so it is unique by construction; every {@link Summary} of the
+ * same input references it instead of carrying its own copy. hitCount counts the
+ * requests answered from here without calling the model.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "summary_sources")
+// Walked by the retention archiver
+@CompoundIndex(name = "last_used_id_idx", def = "{'lastUsedAt': 1, '_id': 1}")
+public class SummarySource {
+
+    @Id
+    private String hash;
+
+    private CompressedText text;
+    private String summarizedText;
+    private long hitCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastUsedAt;
+
+    public String getText() {
+        return CompressedText.text(text);
+    }
+
+    public void setText(String text) {
+        this.text = CompressedText.of(text);
+    }
+}
@@ -29,6 +29,9 @@ public class User {
     private boolean isVerified = false;
 
     private String otp;
+
+    // Sparse: only users with a pending OTP are indexed, which is what the cleanup job scans
+    @Indexed(sparse = true)
     private LocalDateTime otpExpiry;
 
     private LocalDateTime createdAt;
@@ -0,0 +1,16 @@
+package com.arribot.repository;
+
+import com.arribot.model.AIUsageRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AIUsageRollupRepository extends MongoRepository<AIUsageRollup, String> {
+
+    @Query(value = "{ 'userId': ?0, 'period': ?1, 'periodStart': { $gte: ?2, $lte: ?3 } }",
+           sort = "{ 'periodStart': 1 }")
+    List<AIUsageRollup> findRange(String userId, AIUsageRollup.Period period, String fromStart, String toStart);
+}
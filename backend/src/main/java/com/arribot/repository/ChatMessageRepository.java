@@ -1,12 +0,0 @@
-package com.arribot.repository;
-
-import com.arribot.model.ChatMessage;
-import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.List;
-
-@Repository
-public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
-    List<ChatMessage> findBySessionIdOrderByTimestampAsc(String sessionId);
-}
@@ -0,0 +1,11 @@
+package com.arribot.repository;
+
+import com.arribot.model.FlashcardDeck;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface FlashcardDeckReactiveRepository extends ReactiveMongoRepository<FlashcardDeck, String> {
+    Flux<FlashcardDeck> findByUserIdOrderByCreatedAtDescIdDesc(String userId);
+}
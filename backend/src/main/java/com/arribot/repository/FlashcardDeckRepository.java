@@ -0,0 +1,12 @@
+package com.arribot.repository;
+
+import com.arribot.model.FlashcardDeck;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FlashcardDeckRepository extends MongoRepository<FlashcardDeck, String> {
+    List<FlashcardDeck> findByUserIdAndTopicOrderByCreatedAtDesc(String userId, String topic);
+}
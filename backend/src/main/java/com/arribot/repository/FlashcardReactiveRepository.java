@@ -0,0 +1,11 @@
+package com.arribot.repository;
+
+import com.arribot.model.Flashcard;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface FlashcardReactiveRepository extends ReactiveMongoRepository<Flashcard, String> {
+    Flux<Flashcard> findByUserIdOrderByCreatedAtDescIdDesc(String userId);
+}
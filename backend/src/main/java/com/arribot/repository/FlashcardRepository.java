@@ -8,5 +8,5 @@ import java.util.List;
 
 @Repository
 public interface FlashcardRepository extends MongoRepository<Flashcard, String> {
-    List<Flashcard> findByTopicOrderByCreatedAtDesc(String topic);
+    List<Flashcard> findByUserIdAndTopicOrderByCreatedAtDesc(String userId, String topic);
 }
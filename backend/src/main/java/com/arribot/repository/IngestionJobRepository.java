@@ -0,0 +1,15 @@
+package com.arribot.repository;
+
+import com.arribot.model.IngestionJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestionJobRepository extends MongoRepository<IngestionJob, String> {
+
+    Optional<IngestionJob> findByIdAndUserId(String id, String userId);
+
+    long countByStatus(IngestionJob.Status status);
+}
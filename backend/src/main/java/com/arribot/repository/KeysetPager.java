@@ -0,0 +1,155 @@
+package com.arribot.repository;
+
+import com.arribot.model.CursorPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keyset (seek) pagination over (timestamp field, _id).
+ *
+ * Each page resumes strictly after the last document of the previous one, so
+ * the cost of a page is independent of how deep into the collection it is —
+ * unlike skip/limit, which walks and discards every earlier document. The
+ * queried collection needs an index on (filter fields..., timeField, _id).
+ */
+@Component
+public class KeysetPager {
+
+    private static final String NULL_VALUE = "-";
+
+    @Value("${pagination.default.size:20}")
+    private int defaultSize;
+
+    @Value("${pagination.max.size:100}")
+    private int maxSize;
+
+    private final MongoTemplate mongoTemplate;
+
+    public KeysetPager(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @param filter    equality filter the index is prefixed with, or null
+     * @param timeField LocalDateTime property that orders the listing
+     * @param cursor    nextCursor of the previous page, or null for the first page
+     * @param limit     requested page size, or null for the default; capped at pagination.max.size
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public <T> CursorPage<T> page(Class<T> type, Criteria filter, String timeField, Sort.Direction direction,
+                                  String cursor, Integer limit) {
+        return page(type, type, null, filter, timeField, direction, cursor, limit);
+    }
+
+    /**
+     * Same as {@link #page(Class, Criteria, String, Sort.Direction, String, Integer)} but reads
+     * only the fields set up by {@code projection} and maps them onto {@code resultType}, which
+     * must expose the id and {@code timeField} for the cursor.
+     */
+    public <T> CursorPage<T> page(Class<?> sourceType, Class<T> resultType, Consumer<Field> projection,
+                                  Criteria filter, String timeField, Sort.Direction direction,
+                                  String cursor, Integer limit) {
+        int size = pageSize(limit);
+
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            Criteria after = after(decode(cursor), timeField, direction);
+            criteria = filter == null ? after : new Criteria().andOperator(filter, after);
+        }
+
+        Query query = criteria == null ? new Query() : new Query(criteria);
+        query.with(Sort.by(direction, timeField).and(Sort.by(direction, "id")));
+        query.limit(size + 1);
+        if (projection != null) {
+            projection.accept(query.fields());
+        }
+
+        List<T> items = mongoTemplate.query(sourceType).as(resultType).matching(query).all();
+        boolean hasMore = items.size() > size;
+        if (hasMore) {
+            items = items.subList(0, size);
+        }
+
+        String nextCursor = hasMore ? cursorOf(items.get(items.size() - 1), resultType, timeField) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Everything strictly after the cursor position. Missing timestamps sort first
+     * ascending and last descending, as MongoDB orders null below any date.
+     */
+    private Criteria after(Position position, String timeField, Sort.Direction direction) {
+        boolean asc = direction.isAscending();
+        Criteria sameTimeAfterId = asc
+                ? Criteria.where("id").gt(position.id())
+                : Criteria.where("id").lt(position.id());
+
+        if (position.time() == null) {
+            Criteria nullTime = new Criteria().andOperator(Criteria.where(timeField).is(null), sameTimeAfterId);
+            return asc
+                    ? new Criteria().orOperator(nullTime, Criteria.where(timeField).ne(null))
+                    : nullTime;
+        }
+
+        Criteria laterTime = asc
+                ? Criteria.where(timeField).gt(position.time())
+                : Criteria.where(timeField).lt(position.time());
+        Criteria sameTime = new Criteria().andOperator(Criteria.where(timeField).is(position.time()), sameTimeAfterId);
+        return asc
+                ? new Criteria().orOperator(laterTime, sameTime)
+                : new Criteria().orOperator(laterTime, sameTime, Criteria.where(timeField).is(null));
+    }
+
+    /**
+     * Requested page size, or the default, capped at pagination.max.size
+     */
+    public int pageSize(Integer limit) {
+        return limit == null || limit < 1 ? defaultSize : Math.min(limit, maxSize);
+    }
+
+    /**
+     * Cursor that resumes right after {@code last}; the same position works for any
+     * collection ordered by the same time field and ids.
+     */
+    public <T> String cursorOf(T last, Class<T> type, String timeField) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type);
+        PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(last);
+        MongoPersistentProperty timeProperty = entity.getRequiredPersistentProperty(timeField);
+
+        Object time = accessor.getProperty(timeProperty);
+        Object id = entity.getIdentifierAccessor(last).getRequiredIdentifier();
+        String raw = (time != null ? time.toString() : NULL_VALUE) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0 || sep == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String time = raw.substring(0, sep);
+            return new Position(NULL_VALUE.equals(time) ? null : LocalDateTime.parse(time), raw.substring(sep + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Position(LocalDateTime time, String id) {}
+}
@@ -0,0 +1,11 @@
+package com.arribot.repository;
+
+import com.arribot.model.Quiz;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface QuizReactiveRepository extends ReactiveMongoRepository<Quiz, String> {
+    Flux<Quiz> findByUserIdOrderByCreatedAtDescIdDesc(String userId);
+}
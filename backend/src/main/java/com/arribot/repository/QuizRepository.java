@@ -8,5 +8,5 @@ import java.util.List;
 
 @Repository
 public interface QuizRepository extends MongoRepository<Quiz, String> {
-    List<Quiz> findByTopicOrderByCreatedAtDesc(String topic);
+    List<Quiz> findByUserIdAndTopicOrderByCreatedAtDesc(String userId, String topic);
 }
@@ -0,0 +1,13 @@
+package com.arribot.repository;
+
+import com.arribot.model.Resume;
+import com.arribot.model.ResumeSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ResumeReactiveRepository extends ReactiveMongoRepository<Resume, String> {
+    // DTO projection: only the ResumeSummary fields are read
+    Flux<ResumeSummary> findByUserIdOrderByUploadedAtDescIdDesc(String userId);
+}
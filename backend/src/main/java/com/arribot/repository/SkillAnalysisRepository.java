@@ -1,6 +1,5 @@
 package com.arribot.repository;
 
-import com.arribot.model.Resume;
 import com.arribot.model.SkillAnalysis;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
@@ -9,8 +8,9 @@ import java.util.Optional;
 
 @Repository
 public interface SkillAnalysisRepository extends MongoRepository<SkillAnalysis, String> {
-    
-    Optional<SkillAnalysis> findByResume(Resume resume);
-    
-    Optional<SkillAnalysis> findTopByResumeOrderByAnalyzedAtDesc(Resume resume);
+
+    Optional<SkillAnalysis> findTopByResumeIdOrderByAnalyzedAtDesc(String resumeId);
+
+    Optional<SkillAnalysis> findTopByResumeTextHashAndNormalizedRoleOrderByAnalyzedAtDesc(String resumeTextHash,
+                                                                                       String normalizedRole);
 }
@@ -0,0 +1,11 @@
+package com.arribot.repository;
+
+import com.arribot.model.Summary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface SummaryReactiveRepository extends ReactiveMongoRepository<Summary, String> {
+    Flux<Summary> findByUserIdOrderByCreatedAtDescIdDesc(String userId);
+}
@@ -4,6 +4,9 @@ import com.arribot.model.Summary;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface SummaryRepository extends MongoRepository<Summary, String> {
+    Optional<Summary> findFirstByUserIdAndSourceHash(String userId, String sourceHash);
 }
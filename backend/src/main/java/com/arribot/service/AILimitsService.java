@@ -4,17 +4,33 @@ import com.arribot.exception.AILimitExceededException;
 import com.arribot.exception.RateLimitExceededException;
 import com.arribot.model.AIFeature;
 import com.arribot.model.AIUsage;
-import com.arribot.model.GroqResponse;
 import com.arribot.repository.AIUsageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Daily per-user limits over the ai_usage counters.
+ *
+ * Request counters are reserved here before a call, since limits have to hold before
+ * the model is reached. Token counters are derived from the {@link com.arribot.model.AIUsageEvent}
+ * log and applied by the event writer, one $inc per user and day per batch. Every change
+ * is an atomic $inc, so the two paths never overwrite each other's fields.
+ */
 @Service
 public class AILimitsService {
 
@@ -32,6 +48,12 @@ public class AILimitsService {
     @Value("${ai.limits.summary.daily}")
     private int summaryDailyLimit;
 
+    @Value("${ai.limits.learningpath.daily}")
+    private int learningPathDailyLimit;
+
+    @Value("${ai.limits.resume.daily}")
+    private int resumeDailyLimit;
+
     @Value("${ai.ratelimit.requests.per.minute}")
     private int rateLimitPerMinute;
 
@@ -39,9 +61,22 @@ public class AILimitsService {
     private boolean aiEnabled;
 
     private final AIUsageRepository usageRepository;
+    private final AIUsageRollupService rollupService;
+    private final MongoTemplate mongoTemplate;
+
+    // Today's usage per user, kept current on every write so dashboard polling never reads Mongo
+    private final Map<String, UsageSnapshot> snapshots = new ConcurrentHashMap<>();
 
-    public AILimitsService(AIUsageRepository usageRepository) {
+    // Seeded from the clock so ETags never repeat across restarts
+    private final AtomicLong snapshotVersions = new AtomicLong(System.currentTimeMillis());
+
+    private volatile String snapshotDay = LocalDate.now().toString();
+
+    public AILimitsService(AIUsageRepository usageRepository, AIUsageRollupService rollupService,
+                           MongoTemplate mongoTemplate) {
         this.usageRepository = usageRepository;
+        this.rollupService = rollupService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     // ─── Pre-call check (rate + daily limit) ──────────────────────────────────
@@ -62,7 +97,8 @@ public class AILimitsService {
         // 1. Rate limit check
         if (isRateLimited(usage)) {
             logger.warn("Rate limit exceeded for user: {}", userId);
-            throw new RateLimitExceededException("Too many requests. Please wait a moment before trying again.");
+            throw new RateLimitExceededException("Too many requests. Please wait a moment before trying again.",
+                    secondsUntilNextRequest(usage));
         }
 
         // 2. Daily feature limit check
@@ -73,64 +109,151 @@ public class AILimitsService {
                     feature.name().toLowerCase(), getFeatureLimit(feature)));
         }
 
-        // 3. Increment request counter
-        incrementFeatureUsage(usage, feature);
-        usage.setLastRequestTime(LocalDateTime.now());
-        usage.setUpdatedAt(LocalDateTime.now());
-        usage.setTotalRequests(usage.getTotalRequests() + 1);
+        // 3. Increment request counter (reserves the request until the call completes)
+        LocalDateTime now = LocalDateTime.now();
+        AIUsage updated = increment(userId, today, new Update()
+                .inc(featureField(feature), 1)
+                .inc("totalRequests", 1)
+                .set("lastRequestTime", now));
 
-        usageRepository.save(usage);
-        logger.info("AI usage recorded — user: {} feature: {} total today: {}", userId, feature, usage.getTotalRequests());
+        cacheSnapshot(updated);
+        rollupService.recordRequest(userId, LocalDate.parse(today), feature, 1);
+        logger.info("AI usage recorded — user: {} feature: {} total today: {}", userId, feature, updated.getTotalRequests());
     }
 
-    // ─── Post-call token recording ─────────────────────────────────────────────
-
     /**
-     * Record token usage after a successful Groq API call.
-     * Call this AFTER checkAndIncrementUsage() succeeds.
+     * Hand back a request reserved by checkAndIncrementUsage() whose Groq call failed or was shed.
      */
-    public void recordTokenUsage(String userId, GroqResponse groqResponse) {
-        if (groqResponse == null || groqResponse.getTotalTokens() == 0) return;
-
+    public void releaseUsage(String userId, AIFeature feature) {
         String today = LocalDate.now().toString();
-        AIUsage usage = usageRepository.findByUserIdAndDate(userId, today)
-                .orElse(new AIUsage(userId, today));
+        String field = featureField(feature);
+        // Only decrement counters that are still positive, as the reservation may belong to yesterday
+        Query reserved = usageQuery(userId, today).addCriteria(Criteria.where(field).gt(0).and("totalRequests").gt(0));
+        Update update = new Update().inc(field, -1).inc("totalRequests", -1)
+                .inc("revision", 1).set("updatedAt", LocalDateTime.now());
+
+        AIUsage updated = mongoTemplate.findAndModify(reserved, update,
+                FindAndModifyOptions.options().returnNew(true), AIUsage.class);
+        if (updated != null) {
+            cacheSnapshot(updated);
+            rollupService.recordRequest(userId, LocalDate.parse(today), feature, -1);
+            logger.info("AI usage released — user: {} feature: {}", userId, feature);
+        }
+    }
+
+    // ─── Token counters derived from usage events ──────────────────────────────
 
-        usage.setPromptTokensUsed(safeAdd(usage.getPromptTokensUsed(), groqResponse.getPromptTokens()));
-        usage.setCompletionTokensUsed(safeAdd(usage.getCompletionTokensUsed(), groqResponse.getCompletionTokens()));
-        usage.setTotalTokensUsed(safeAdd(usage.getTotalTokensUsed(), groqResponse.getTotalTokens()));
-        usage.setUpdatedAt(LocalDateTime.now());
+    /**
+     * Add the tokens of a batch of usage events to the user's counters for that day.
+     */
+    public void addTokenUsage(String userId, String date, long promptTokens, long completionTokens, long totalTokens) {
+        AIUsage updated = increment(userId, date, new Update()
+                .inc("promptTokensUsed", promptTokens)
+                .inc("completionTokensUsed", completionTokens)
+                .inc("totalTokensUsed", totalTokens));
+        cacheSnapshot(updated);
+    }
 
-        usageRepository.save(usage);
-        logger.info("Token usage recorded — user: {} +{} tokens (total today: {})",
-                userId, groqResponse.getTotalTokens(), usage.getTotalTokensUsed());
+    /**
+     * Overwrite the user's token counters for a day with totals recomputed from the event log.
+     */
+    public void setTokenUsage(String userId, String date, long promptTokens, long completionTokens, long totalTokens) {
+        AIUsage updated = increment(userId, date, new Update()
+                .set("promptTokensUsed", promptTokens)
+                .set("completionTokensUsed", completionTokens)
+                .set("totalTokensUsed", totalTokens));
+        cacheSnapshot(updated);
     }
 
     // ─── Stats for Dashboard ───────────────────────────────────────────────────
 
     public AIUsageStats getUserStats(String userId) {
+        return getUserStatsSnapshot(userId).getStats();
+    }
+
+    /**
+     * Today's stats for a user together with an ETag that changes whenever they do.
+     * Served from memory; Mongo is only read on a miss or after the day rolls over.
+     */
+    public UsageSnapshot getUserStatsSnapshot(String userId) {
         String today = LocalDate.now().toString();
+        if (!today.equals(snapshotDay)) {
+            // Day rolled over — drop yesterday's snapshots in one sweep
+            snapshotDay = today;
+            snapshots.values().removeIf(s -> !s.date.equals(today));
+        }
+
+        UsageSnapshot snapshot = snapshots.get(userId);
+        if (snapshot != null && snapshot.date.equals(today)) {
+            return snapshot;
+        }
+
         AIUsage usage = usageRepository.findByUserIdAndDate(userId, today)
                 .orElse(new AIUsage(userId, today));
+        return cacheSnapshot(usage);
+    }
 
+    // ─── Private helpers ───────────────────────────────────────────────────────
+
+    /**
+     * Apply an update to the (userId, date) document, creating it if needed, and return the result.
+     * Two first writes of the day can race on user_date_idx; the loser retries as a plain update.
+     */
+    private AIUsage increment(String userId, String date, Update update) {
+        LocalDateTime now = LocalDateTime.now();
+        update.inc("revision", 1).set("updatedAt", now).setOnInsert("createdAt", now);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(usageQuery(userId, date), update, options, AIUsage.class);
+        } catch (DuplicateKeyException e) {
+            return mongoTemplate.findAndModify(usageQuery(userId, date), update, options, AIUsage.class);
+        }
+    }
+
+    private static Query usageQuery(String userId, String date) {
+        return new Query(Criteria.where("userId").is(userId).and("date").is(date));
+    }
+
+    /**
+     * Cache the document as the user's snapshot unless a later write of it is already cached.
+     * Concurrent writers can get here out of order; the document revision decides which one wins.
+     */
+    private UsageSnapshot cacheSnapshot(AIUsage usage) {
+        long revision = usage.getRevision() != null ? usage.getRevision() : 0;
+        UsageSnapshot candidate = new UsageSnapshot(usage.getDate(), toStats(usage), revision,
+                snapshotVersions.incrementAndGet());
+        if (!usage.getDate().equals(LocalDate.now().toString())) {
+            // Late events for a past day must not replace today's snapshot
+            return candidate;
+        }
+        return snapshots.merge(usage.getUserId(), candidate, (cached, fresh) ->
+                cached.date.equals(fresh.date) && cached.revision >= fresh.revision ? cached : fresh);
+    }
+
+    private AIUsageStats toStats(AIUsage usage) {
         return new AIUsageStats(
             // Remaining counts
             chatDailyLimit           - usage.getChatMessages(),
             flashcardsDailyLimit     - usage.getFlashcardsGenerated(),
             quizDailyLimit           - usage.getQuizzesGenerated(),
             summaryDailyLimit        - usage.getSummariesGenerated(),
+            learningPathDailyLimit   - usage.getLearningPathsGenerated(),
+            resumeDailyLimit         - usage.getResumeAnalysesGenerated(),
             // Absolute counts today
             usage.getChatMessages(),
             usage.getFlashcardsGenerated(),
             usage.getQuizzesGenerated(),
             usage.getSummariesGenerated(),
             usage.getLearningPathsGenerated(),
+            usage.getResumeAnalysesGenerated(),
             usage.getTotalRequests(),
             // Limits
             chatDailyLimit,
             flashcardsDailyLimit,
             quizDailyLimit,
             summaryDailyLimit,
+            learningPathDailyLimit,
+            resumeDailyLimit,
             // Groq token usage
             usage.getPromptTokensUsed(),
             usage.getCompletionTokensUsed(),
@@ -138,8 +261,6 @@ public class AILimitsService {
         );
     }
 
-    // ─── Private helpers ───────────────────────────────────────────────────────
-
     private boolean isRateLimited(AIUsage usage) {
         if (usage.getLastRequestTime() == null) return false;
         long secondsSinceLastRequest = ChronoUnit.SECONDS.between(usage.getLastRequestTime(), LocalDateTime.now());
@@ -147,12 +268,19 @@ public class AILimitsService {
         return secondsSinceLastRequest < minSecondsBetweenRequests;
     }
 
+    private long secondsUntilNextRequest(AIUsage usage) {
+        long secondsSinceLastRequest = ChronoUnit.SECONDS.between(usage.getLastRequestTime(), LocalDateTime.now());
+        return Math.max(1, 60 / rateLimitPerMinute - secondsSinceLastRequest);
+    }
+
     private boolean isFeatureLimitExceeded(AIUsage usage, AIFeature feature) {
         return switch (feature) {
             case CHAT      -> usage.getChatMessages()        >= chatDailyLimit;
             case FLASHCARDS -> usage.getFlashcardsGenerated() >= flashcardsDailyLimit;
             case QUIZ      -> usage.getQuizzesGenerated()     >= quizDailyLimit;
             case SUMMARY   -> usage.getSummariesGenerated()   >= summaryDailyLimit;
+            case LEARNING_PATH   -> usage.getLearningPathsGenerated()  >= learningPathDailyLimit;
+            case RESUME_ANALYSIS -> usage.getResumeAnalysesGenerated() >= resumeDailyLimit;
         };
     }
 
@@ -162,66 +290,95 @@ public class AILimitsService {
             case FLASHCARDS -> flashcardsDailyLimit;
             case QUIZ      -> quizDailyLimit;
             case SUMMARY   -> summaryDailyLimit;
+            case LEARNING_PATH   -> learningPathDailyLimit;
+            case RESUME_ANALYSIS -> resumeDailyLimit;
         };
     }
 
-    private void incrementFeatureUsage(AIUsage usage, AIFeature feature) {
-        switch (feature) {
-            case CHAT      -> usage.setChatMessages(usage.getChatMessages() + 1);
-            case FLASHCARDS -> usage.setFlashcardsGenerated(usage.getFlashcardsGenerated() + 1);
-            case QUIZ      -> usage.setQuizzesGenerated(usage.getQuizzesGenerated() + 1);
-            case SUMMARY   -> usage.setSummariesGenerated(usage.getSummariesGenerated() + 1);
-        }
-    }
-
-    private long safeAdd(Long a, long b) {
-        return (a == null ? 0L : a) + b;
+    private static String featureField(AIFeature feature) {
+        return switch (feature) {
+            case CHAT      -> "chatMessages";
+            case FLASHCARDS -> "flashcardsGenerated";
+            case QUIZ      -> "quizzesGenerated";
+            case SUMMARY   -> "summariesGenerated";
+            case LEARNING_PATH   -> "learningPathsGenerated";
+            case RESUME_ANALYSIS -> "resumeAnalysesGenerated";
+        };
     }
 
     // ─── Stats DTO ─────────────────────────────────────────────────────────────
 
+    public static class UsageSnapshot {
+        private final String date;
+        private final AIUsageStats stats;
+        private final long revision;
+        private final String eTag;
+
+        UsageSnapshot(String date, AIUsageStats stats, long revision, long version) {
+            this.date = date;
+            this.stats = stats;
+            this.revision = revision;
+            this.eTag = "\"" + date + "-" + Long.toHexString(version) + "\"";
+        }
+
+        public AIUsageStats getStats() { return stats; }
+        public String getETag()        { return eTag; }
+    }
+
     public static class AIUsageStats {
         // Remaining allowance
         private final int chatRemaining;
         private final int flashcardsRemaining;
         private final int quizRemaining;
         private final int summaryRemaining;
+        private final int learningPathRemaining;
+        private final int resumeAnalysisRemaining;
         // Used today
         private final int chatUsed;
         private final int flashcardsUsed;
         private final int quizUsed;
         private final int summaryUsed;
         private final int learningPathsGenerated;
+        private final int resumeAnalysesGenerated;
         private final int totalRequestsToday;
         // Daily limits
         private final int chatLimit;
         private final int flashcardsLimit;
         private final int quizLimit;
         private final int summaryLimit;
+        private final int learningPathLimit;
+        private final int resumeAnalysisLimit;
         // Token counts
         private final long promptTokensUsed;
         private final long completionTokensUsed;
         private final long totalTokensUsed;
 
         public AIUsageStats(int chatRemaining, int flashcardsRemaining, int quizRemaining,
-                            int summaryRemaining, int chatUsed, int flashcardsUsed, int quizUsed,
-                            int summaryUsed, int learningPathsGenerated, int totalRequestsToday,
+                            int summaryRemaining, int learningPathRemaining, int resumeAnalysisRemaining,
+                            int chatUsed, int flashcardsUsed, int quizUsed, int summaryUsed,
+                            int learningPathsGenerated, int resumeAnalysesGenerated, int totalRequestsToday,
                             int chatLimit, int flashcardsLimit, int quizLimit, int summaryLimit,
+                            int learningPathLimit, int resumeAnalysisLimit,
                             long promptTokensUsed, long completionTokensUsed, long totalTokensUsed) {
             this.chatRemaining = chatRemaining;
             this.flashcardsRemaining = flashcardsRemaining;
             this.quizRemaining = quizRemaining;
             this.summaryRemaining = summaryRemaining;
+            this.learningPathRemaining = learningPathRemaining;
+            this.resumeAnalysisRemaining = resumeAnalysisRemaining;
             this.chatUsed = chatUsed;
             this.flashcardsUsed = flashcardsUsed;
             this.quizUsed = quizUsed;
             this.summaryUsed = summaryUsed;
             this.learningPathsGenerated = learningPathsGenerated;
+            this.resumeAnalysesGenerated = resumeAnalysesGenerated;
             this.totalRequestsToday = totalRequestsToday;
             this.chatLimit = chatLimit;
             this.flashcardsLimit = flashcardsLimit;
             this.quizLimit = quizLimit;
             this.summaryLimit = summaryLimit;
+            this.learningPathLimit = learningPathLimit;
+            this.resumeAnalysisLimit = resumeAnalysisLimit;
             this.promptTokensUsed = promptTokensUsed;
             this.completionTokensUsed = completionTokensUsed;
             this.totalTokensUsed = totalTokensUsed;
@@ -231,16 +388,21 @@ public class AILimitsService {
         public int getFlashcardsRemaining()    { return flashcardsRemaining; }
         public int getQuizRemaining()          { return quizRemaining; }
         public int getSummaryRemaining()       { return summaryRemaining; }
+        public int getLearningPathRemaining()  { return learningPathRemaining; }
+        public int getResumeAnalysisRemaining() { return resumeAnalysisRemaining; }
         public int getChatUsed()               { return chatUsed; }
         public int getFlashcardsUsed()         { return flashcardsUsed; }
         public int getQuizUsed()               { return quizUsed; }
         public int getSummaryUsed()            { return summaryUsed; }
         public int getLearningPathsGenerated() { return learningPathsGenerated; }
+        public int getResumeAnalysesGenerated() { return resumeAnalysesGenerated; }
         public int getTotalRequestsToday()     { return totalRequestsToday; }
         public int getChatLimit()              { return chatLimit; }
         public int getFlashcardsLimit()        { return flashcardsLimit; }
         public int getQuizLimit()              { return quizLimit; }
         public int getSummaryLimit()           { return summaryLimit; }
+        public int getLearningPathLimit()      { return learningPathLimit; }
+        public int getResumeAnalysisLimit()    { return resumeAnalysisLimit; }
         public long getPromptTokensUsed()      { return promptTokensUsed; }
         public long getCompletionTokensUsed()  { return completionTokensUsed; }
         public long getTotalTokensUsed()       { return totalTokensUsed; }
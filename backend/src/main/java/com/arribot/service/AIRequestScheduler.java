@@ -0,0 +1,417 @@
+package com.arribot.service;
+
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.model.AIFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fair-share scheduler and admission control in front of the Groq gateway.
+ *
+ * Requests are grouped into priority classes (interactive chat first, then
+ * standard generations, then batch-style learning paths and resume analyses).
+ * Free Groq slots always go to the highest non-empty class; within a class,
+ * every user has their own queue and slots are handed out with deficit round
+ * robin, charging each request the configured weight of its {@link AIFeature}.
+ *
+ * When a class is backed up beyond its queue depth or estimated wait budget,
+ * new requests of that class are shed immediately with an
+ * {@link AIOverloadedException} carrying a Retry-After estimate, so that
+ * lower-priority work never inflates the latency of interactive requests.
+ */
+@Service
+public class AIRequestScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIRequestScheduler.class);
+
+    // Smoothing factor for the per-feature service time estimate
+    private static final double EWMA_ALPHA = 0.2;
+
+    // Seed for the service time estimate before any call has completed, per unit of weight
+    private static final long INITIAL_SERVICE_MS_PER_WEIGHT = 1500;
+
+    @FunctionalInterface
+    public interface AICall<T> {
+        T call() throws IOException;
+    }
+
+    public enum Priority {
+        INTERACTIVE,
+        STANDARD,
+        BATCH;
+
+        public static Priority of(AIFeature feature) {
+            return switch (feature) {
+                case CHAT -> INTERACTIVE;
+                case SUMMARY, FLASHCARDS, QUIZ -> STANDARD;
+                case LEARNING_PATH, RESUME_ANALYSIS -> BATCH;
+            };
+        }
+    }
+
+    @Value("${ai.scheduler.max.concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${ai.scheduler.max.wait.seconds:120}")
+    private long maxWaitSeconds;
+
+    @Value("${ai.scheduler.weight.chat:1}")
+    private int chatWeight;
+
+    @Value("${ai.scheduler.weight.flashcards:2}")
+    private int flashcardsWeight;
+
+    @Value("${ai.scheduler.weight.quiz:2}")
+    private int quizWeight;
+
+    @Value("${ai.scheduler.weight.summary:2}")
+    private int summaryWeight;
+
+    @Value("${ai.scheduler.weight.learningpath:8}")
+    private int learningPathWeight;
+
+    @Value("${ai.scheduler.weight.resume:4}")
+    private int resumeWeight;
+
+    @Value("${ai.admission.interactive.max.queue:200}")
+    private int interactiveMaxQueue;
+
+    @Value("${ai.admission.interactive.max.wait.seconds:60}")
+    private long interactiveMaxWaitSeconds;
+
+    @Value("${ai.admission.standard.max.queue:50}")
+    private int standardMaxQueue;
+
+    @Value("${ai.admission.standard.max.wait.seconds:30}")
+    private long standardMaxWaitSeconds;
+
+    @Value("${ai.admission.batch.max.queue:10}")
+    private int batchMaxQueue;
+
+    @Value("${ai.admission.batch.max.wait.seconds:15}")
+    private long batchMaxWaitSeconds;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<AIFeature, Integer> weights = new EnumMap<>(AIFeature.class);
+    private final Map<AIFeature, Timer> waitTimers = new EnumMap<>(AIFeature.class);
+    private final Map<Priority, Counter> shedCounters = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> maxQueueDepth = new EnumMap<>(Priority.class);
+    private final Map<Priority, Long> maxWaitMillis = new EnumMap<>(Priority.class);
+
+    // Guarded by "this"
+    private final Map<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+    private final Map<AIFeature, Double> serviceMillis = new EnumMap<>(AIFeature.class);
+    private int inFlight = 0;
+    private double inFlightWorkMillis = 0;
+    private int quantum = 1;
+
+    public AIRequestScheduler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        weights.put(AIFeature.CHAT, Math.max(1, chatWeight));
+        weights.put(AIFeature.FLASHCARDS, Math.max(1, flashcardsWeight));
+        weights.put(AIFeature.QUIZ, Math.max(1, quizWeight));
+        weights.put(AIFeature.SUMMARY, Math.max(1, summaryWeight));
+        weights.put(AIFeature.LEARNING_PATH, Math.max(1, learningPathWeight));
+        weights.put(AIFeature.RESUME_ANALYSIS, Math.max(1, resumeWeight));
+
+        // A quantum of at least the heaviest cost lets every user dispatch one request per round
+        quantum = weights.values().stream().mapToInt(Integer::intValue).max().orElse(1);
+
+        maxQueueDepth.put(Priority.INTERACTIVE, interactiveMaxQueue);
+        maxQueueDepth.put(Priority.STANDARD, standardMaxQueue);
+        maxQueueDepth.put(Priority.BATCH, batchMaxQueue);
+        maxWaitMillis.put(Priority.INTERACTIVE, TimeUnit.SECONDS.toMillis(interactiveMaxWaitSeconds));
+        maxWaitMillis.put(Priority.STANDARD, TimeUnit.SECONDS.toMillis(standardMaxWaitSeconds));
+        maxWaitMillis.put(Priority.BATCH, TimeUnit.SECONDS.toMillis(batchMaxWaitSeconds));
+
+        for (Priority priority : Priority.values()) {
+            classes.put(priority, new PriorityClass());
+            shedCounters.put(priority, Counter.builder("ai.scheduler.shed")
+                    .description("AI requests rejected by admission control")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+            Gauge.builder("ai.scheduler.queue.depth", this, s -> s.getQueuedCount(priority))
+                    .description("AI requests waiting for a Groq slot")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        for (AIFeature feature : AIFeature.values()) {
+            serviceMillis.put(feature, (double) weights.get(feature) * INITIAL_SERVICE_MS_PER_WEIGHT);
+            waitTimers.put(feature, Timer.builder("ai.scheduler.queue.wait")
+                    .description("Time AI requests spend queued before reaching Groq")
+                    .tag("feature", feature.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ai.scheduler.in.flight", this, AIRequestScheduler::getInFlightCount)
+                .description("AI requests currently executing against Groq")
+                .register(meterRegistry);
+    }
+
+    // ─── Public API ────────────────────────────────────────────────────────────
+
+    /**
+     * Run an AI call once its priority class and the user's fair share allow it.
+     * Blocks the calling thread while the request is queued.
+     *
+     * @throws AIOverloadedException if the request is shed by admission control
+     */
+    public <T> T execute(String userId, AIFeature feature, AICall<T> call) throws IOException {
+        Ticket ticket = enqueue(userId, feature);
+        awaitGrant(ticket);
+        long started = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            release(ticket, System.nanoTime() - started);
+        }
+    }
+
+    public synchronized int getQueuedCount(Priority priority) {
+        return classes.get(priority).queued;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    // ─── Admission + queueing ──────────────────────────────────────────────────
+
+    private synchronized Ticket enqueue(String userId, AIFeature feature) {
+        Priority priority = Priority.of(feature);
+        Ticket ticket = new Ticket(feature, priority, weights.get(feature), serviceMillis.get(feature));
+
+        admit(ticket);
+
+        PriorityClass priorityClass = classes.get(priority);
+        String key = userId != null ? userId : "anonymous";
+        UserQueue queue = priorityClass.queues.get(key);
+        if (queue == null) {
+            queue = new UserQueue(key);
+            priorityClass.queues.put(key, queue);
+            priorityClass.ring.addLast(queue);
+        }
+        queue.tickets.addLast(ticket);
+        priorityClass.queued++;
+        priorityClass.queuedWorkMillis += ticket.estimateMillis;
+
+        dispatch();
+        return ticket;
+    }
+
+    /**
+     * Shed the request early if its class is already too deep or too slow.
+     */
+    private void admit(Ticket ticket) {
+        Priority priority = ticket.priority;
+
+        // Everything at the same or higher priority is served before this ticket
+        int depthAhead = 0;
+        double workAhead = 0;
+        for (Priority p : Priority.values()) {
+            if (p.ordinal() > priority.ordinal()) break;
+            depthAhead += classes.get(p).queued;
+            workAhead += classes.get(p).queuedWorkMillis;
+        }
+
+        long estimatedWait = estimateWaitMillis(depthAhead, workAhead);
+        int depthLimit = maxQueueDepth.get(priority);
+        long waitLimit = maxWaitMillis.get(priority);
+        if (depthAhead < depthLimit && estimatedWait <= waitLimit) {
+            return;
+        }
+
+        // Time until enough work ahead drains for this class to be admitted again
+        double perTicketMillis = depthAhead > 0 ? workAhead / depthAhead : ticket.estimateMillis;
+        double drainForDepth = Math.max(0, depthAhead - depthLimit + 1) * perTicketMillis / Math.max(1, maxConcurrent);
+        double drainForWait = Math.max(0, estimatedWait - waitLimit);
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(Math.max(drainForDepth, drainForWait) / 1000.0));
+
+        shedCounters.get(priority).increment();
+        logger.warn("Shedding {} request — {} queued ahead, estimated wait {}ms", ticket.feature, depthAhead, estimatedWait);
+        throw new AIOverloadedException(
+                "AI service is under heavy load. Please retry in " + retryAfterSeconds + " seconds.",
+                retryAfterSeconds);
+    }
+
+    private long estimateWaitMillis(int depthAhead, double workAhead) {
+        if (inFlight + depthAhead < maxConcurrent) {
+            return 0;
+        }
+        // In-flight calls are on average half done
+        double pending = workAhead + inFlightWorkMillis / 2;
+        return (long) (pending / Math.max(1, maxConcurrent));
+    }
+
+    private void awaitGrant(Ticket ticket) throws IOException {
+        try {
+            ticket.grant.get(maxWaitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            if (abandon(ticket)) {
+                logger.warn("AI request for {} timed out after {}s in queue", ticket.feature, maxWaitSeconds);
+                throw new IOException("AI service is busy, request timed out in queue");
+            }
+            // Granted concurrently with the timeout — the slot is ours, carry on
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (abandon(ticket)) {
+                throw new IOException("Interrupted while waiting for AI service");
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("AI request scheduling failed", e.getCause());
+        }
+    }
+
+    /**
+     * Remove a ticket that gave up waiting. Returns false if it had already been granted.
+     */
+    private synchronized boolean abandon(Ticket ticket) {
+        if (ticket.granted) {
+            return false;
+        }
+        PriorityClass priorityClass = classes.get(ticket.priority);
+        for (UserQueue queue : priorityClass.ring) {
+            if (queue.tickets.remove(ticket)) {
+                priorityClass.queued--;
+                priorityClass.queuedWorkMillis -= ticket.estimateMillis;
+                if (queue.tickets.isEmpty()) {
+                    priorityClass.remove(queue);
+                }
+                break;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void release(Ticket ticket, long serviceNanos) {
+        inFlight--;
+        inFlightWorkMillis -= ticket.estimateMillis;
+
+        double observed = TimeUnit.NANOSECONDS.toMillis(serviceNanos);
+        double previous = serviceMillis.get(ticket.feature);
+        serviceMillis.put(ticket.feature, previous + EWMA_ALPHA * (observed - previous));
+
+        dispatch();
+    }
+
+    /**
+     * Hand out free slots: strict priority between classes, deficit round robin within a class.
+     */
+    private void dispatch() {
+        while (inFlight < maxConcurrent) {
+            Ticket next = null;
+            for (Priority priority : Priority.values()) {
+                next = classes.get(priority).next(quantum);
+                if (next != null) break;
+            }
+            if (next == null) {
+                return;
+            }
+            inFlight++;
+            inFlightWorkMillis += next.estimateMillis;
+            grant(next);
+        }
+    }
+
+    private void grant(Ticket ticket) {
+        ticket.granted = true;
+        long waited = System.nanoTime() - ticket.enqueuedAt;
+        waitTimers.get(ticket.feature).record(waited, TimeUnit.NANOSECONDS);
+        ticket.grant.complete(null);
+    }
+
+    // ─── Internal types ────────────────────────────────────────────────────────
+
+    private static final class PriorityClass {
+        private final Map<String, UserQueue> queues = new HashMap<>();
+        private final ArrayDeque<UserQueue> ring = new ArrayDeque<>();
+        private int queued = 0;
+        private double queuedWorkMillis = 0;
+
+        /**
+         * Pop the next ticket by deficit round robin, or null if the class is empty.
+         */
+        private Ticket next(int quantum) {
+            while (!ring.isEmpty()) {
+                UserQueue queue = ring.peekFirst();
+                if (!queue.credited) {
+                    queue.deficit += quantum;
+                    queue.credited = true;
+                }
+
+                Ticket head = queue.tickets.peekFirst();
+                if (head.cost > queue.deficit) {
+                    // Out of credit for this round — move on to the next user
+                    queue.credited = false;
+                    ring.addLast(ring.pollFirst());
+                    continue;
+                }
+
+                queue.deficit -= head.cost;
+                queue.tickets.pollFirst();
+                if (queue.tickets.isEmpty()) {
+                    remove(queue);
+                }
+                queued--;
+                queuedWorkMillis -= head.estimateMillis;
+                return head;
+            }
+            return null;
+        }
+
+        private void remove(UserQueue queue) {
+            ring.remove(queue);
+            queues.remove(queue.userId);
+        }
+    }
+
+    private static final class UserQueue {
+        private final String userId;
+        private final ArrayDeque<Ticket> tickets = new ArrayDeque<>();
+        private long deficit = 0;
+        private boolean credited = false;
+
+        private UserQueue(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class Ticket {
+        private final AIFeature feature;
+        private final Priority priority;
+        private final int cost;
+        private final double estimateMillis;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> grant = new CompletableFuture<>();
+        private boolean granted = false;
+
+        private Ticket(AIFeature feature, Priority priority, int cost, double estimateMillis) {
+            this.feature = feature;
+            this.priority = priority;
+            this.cost = cost;
+            this.estimateMillis = estimateMillis;
+        }
+    }
+}
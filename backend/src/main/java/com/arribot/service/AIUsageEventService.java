@@ -0,0 +1,128 @@
+package com.arribot.service;
+
+import com.arribot.model.AIUsageEvent;
+import com.arribot.model.AIUsageRollup.Period;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads over the AI usage event log: per-feature breakdowns, and the nightly
+ * reconciliation that recomputes a day's token counters from its events and
+ * rebuilds the rollups of any week or month that day closed.
+ */
+@Service
+public class AIUsageEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIUsageEventService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final AILimitsService aiLimitsService;
+    private final AIUsageRollupService rollupService;
+
+    public AIUsageEventService(MongoTemplate mongoTemplate, AILimitsService aiLimitsService,
+                               AIUsageRollupService rollupService) {
+        this.mongoTemplate = mongoTemplate;
+        this.aiLimitsService = aiLimitsService;
+        this.rollupService = rollupService;
+    }
+
+    /**
+     * Calls, errors, latency and tokens per feature for one user over [from, to].
+     */
+    public List<FeatureBreakdown> getFeatureBreakdown(String userId, LocalDate from, LocalDate to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("meta.userId").is(userId)
+                        .and("timestamp").gte(from.atStartOfDay()).lt(to.plusDays(1).atStartOfDay())),
+                Aggregation.group("meta.feature")
+                        .count().as("calls")
+                        .sum(ConditionalOperators.when(Criteria.where("outcome").is(AIUsageEvent.ERROR))
+                                .then(1).otherwise(0)).as("errors")
+                        .avg("latencyMs").as("avgLatencyMs")
+                        .max("latencyMs").as("maxLatencyMs")
+                        .sum("promptTokens").as("promptTokens")
+                        .sum("completionTokens").as("completionTokens")
+                        .sum("totalTokens").as("totalTokens"),
+                Aggregation.sort(Sort.Direction.DESC, "calls"));
+
+        return mongoTemplate.aggregate(aggregation, AIUsageEvent.class, Document.class).getMappedResults().stream()
+                .map(doc -> new FeatureBreakdown(
+                        doc.getString("_id"),
+                        number(doc, "calls"),
+                        number(doc, "errors"),
+                        Math.round(doc.get("avgLatencyMs") instanceof Number n ? n.doubleValue() : 0.0),
+                        number(doc, "maxLatencyMs"),
+                        number(doc, "promptTokens"),
+                        number(doc, "completionTokens"),
+                        number(doc, "totalTokens")))
+                .toList();
+    }
+
+    @Scheduled(cron = "${ai.events.reconcile.cron:0 15 0 * * *}")
+    public void reconcileYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        reconcile(yesterday);
+        rebuildClosedRollups(yesterday);
+    }
+
+    /**
+     * Rebuild the week and month rollups that ended with {@code lastDay}, once their daily
+     * counters are final, so an increment lost on the way is not carried forever.
+     */
+    private void rebuildClosedRollups(LocalDate lastDay) {
+        LocalDate today = lastDay.plusDays(1);
+        for (Period period : Period.values()) {
+            LocalDate start = AIUsageRollupService.periodStart(period, lastDay);
+            if (!AIUsageRollupService.periodStart(period, today).equals(start)) {
+                try {
+                    rollupService.rebuild(period, start);
+                } catch (RuntimeException e) {
+                    logger.error("Rebuilding {} usage rollups from {} failed: {}", period, start, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Overwrite every user's token counters for the day with the sums of that day's events,
+     * repairing any batch whose counter update failed after its events were written.
+     */
+    public void reconcile(LocalDate date) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("timestamp")
+                        .gte(date.atStartOfDay()).lt(date.plusDays(1).atStartOfDay())),
+                Aggregation.group("meta.userId")
+                        .sum("promptTokens").as("promptTokens")
+                        .sum("completionTokens").as("completionTokens")
+                        .sum("totalTokens").as("totalTokens"));
+
+        int users = 0;
+        try {
+            for (Document doc : mongoTemplate.aggregate(aggregation, AIUsageEvent.class, Document.class)) {
+                aiLimitsService.setTokenUsage(doc.getString("_id"), date.toString(),
+                        number(doc, "promptTokens"), number(doc, "completionTokens"), number(doc, "totalTokens"));
+                users++;
+            }
+            logger.info("Reconciled token usage of {} users for {}", users, date);
+        } catch (RuntimeException e) {
+            logger.error("Token usage reconciliation for {} failed after {} users: {}", date, users, e.getMessage());
+        }
+    }
+
+    private static long number(Document doc, String field) {
+        return doc.get(field) instanceof Number n ? n.longValue() : 0L;
+    }
+
+    public record FeatureBreakdown(String feature, long calls, long errors, long avgLatencyMs, long maxLatencyMs,
+                                   long promptTokens, long completionTokens, long totalTokens) {}
+}
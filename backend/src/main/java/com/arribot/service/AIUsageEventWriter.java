@@ -0,0 +1,248 @@
+package com.arribot.service;
+
+import com.arribot.model.AIFeature;
+import com.arribot.model.AIUsageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes usage events off the request thread.
+ *
+ * Events go into a bounded queue that one daemon thread drains in batches of up to
+ * ai.events.batch.size, or whatever arrived within ai.events.flush.interval.ms. Each
+ * batch is one unordered insert into the time-series collection, after which its
+ * tokens are folded into the daily ai_usage counters and the rollups — one $inc per
+ * user and day instead of one per call. A failed insert is retried with backoff up to
+ * ai.events.flush.max.attempts times. A full queue drops the event rather than slowing
+ * the call down; ai.events.dropped counts those and events whose retries ran out.
+ *
+ * The collection is created as a time-series collection on startup (an insert into a
+ * missing one would create a plain collection), with events expiring after
+ * ai.events.retention.days.
+ */
+@Service
+public class AIUsageEventWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIUsageEventWriter.class);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final AILimitsService aiLimitsService;
+    private final AIUsageRollupService rollupService;
+    private final BlockingQueue<AIUsageEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter written;
+    private final Counter dropped;
+    private final Thread worker;
+
+    @Value("${ai.events.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${ai.events.flush.max.attempts:5}")
+    private int flushMaxAttempts;
+
+    @Value("${ai.events.flush.backoff.ms:500}")
+    private long flushBackoffMs;
+
+    private volatile boolean running = true;
+
+    public AIUsageEventWriter(MongoTemplate mongoTemplate,
+                              AILimitsService aiLimitsService,
+                              AIUsageRollupService rollupService,
+                              MeterRegistry meterRegistry,
+                              @Value("${ai.events.queue.capacity:10000}") int queueCapacity,
+                              @Value("${ai.events.batch.size:500}") int batchSize,
+                              @Value("${ai.events.flush.interval.ms:1000}") long flushIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.aiLimitsService = aiLimitsService;
+        this.rollupService = rollupService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.written = meterRegistry.counter("ai.events.written");
+        this.dropped = meterRegistry.counter("ai.events.dropped");
+        meterRegistry.gaugeCollectionSize("ai.events.queue.size", Tags.empty(), queue);
+
+        this.worker = new Thread(this::drain, "ai-usage-events");
+        worker.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            ensureCollection();
+        } catch (RuntimeException e) {
+            logger.error("Failed to set up the AI usage event collection: {}", e.getMessage());
+        }
+        worker.start();
+    }
+
+    private void ensureCollection() {
+        String collection = mongoTemplate.getCollectionName(AIUsageEvent.class);
+        if (!mongoTemplate.collectionExists(collection)) {
+            // Options come from the @TimeSeries annotation
+            mongoTemplate.createCollection(AIUsageEvent.class);
+            logger.info("Created time-series collection {}", collection);
+        }
+        Object expireAfter = retentionDays > 0 ? Duration.ofDays(retentionDays).toSeconds() : "off";
+        mongoTemplate.getDb().runCommand(new Document("collMod", collection)
+                .append("expireAfterSeconds", expireAfter));
+    }
+
+    /**
+     * Queue an event; never blocks.
+     */
+    public void record(AIUsageEvent event) {
+        if (!queue.offer(event)) {
+            dropped.increment();
+            logger.warn("AI usage event queue full; dropped event for user {}", event.getMeta().getUserId());
+        }
+    }
+
+    private void drain() {
+        List<AIUsageEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AIUsageEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0) break;
+                    AIUsageEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AIUsageEvent> batch) {
+        // Only events that made it into the collection are counted, so reconciliation agrees with the counters
+        List<AIUsageEvent> inserted = insert(batch);
+
+        // Sum the batch per user and day, and per feature for the rollups
+        Map<DayKey, long[]> perDay = new LinkedHashMap<>();
+        Map<FeatureKey, long[]> perFeature = new LinkedHashMap<>();
+        for (AIUsageEvent event : inserted) {
+            if (event.getTotalTokens() == 0) continue;
+            LocalDate date = event.getTimestamp().toLocalDate();
+            String userId = event.getMeta().getUserId();
+            add(perDay.computeIfAbsent(new DayKey(userId, date), k -> new long[3]), event);
+            add(perFeature.computeIfAbsent(new FeatureKey(userId, date, event.getMeta().getFeature()), k -> new long[3]), event);
+        }
+
+        perDay.forEach((key, tokens) -> {
+            try {
+                aiLimitsService.addTokenUsage(key.userId(), key.date().toString(), tokens[0], tokens[1], tokens[2]);
+            } catch (RuntimeException e) {
+                // The nightly reconciliation recomputes the day from the events
+                logger.error("Failed to update token usage for user {} on {}: {}", key.userId(), key.date(), e.getMessage());
+            }
+        });
+        perFeature.forEach((key, tokens) ->
+                rollupService.recordTokens(key.userId(), key.date(), key.feature(), tokens[0], tokens[1], tokens[2]));
+    }
+
+    /**
+     * Insert the batch, retrying what failed with exponential backoff; returns the events that were written.
+     *
+     * After a partial failure only the rejected events are retried. Anything still failing once
+     * ai.events.flush.max.attempts is used up counts as dropped. While this retries, new events
+     * wait in the queue.
+     */
+    private List<AIUsageEvent> insert(List<AIUsageEvent> batch) {
+        List<AIUsageEvent> inserted = new ArrayList<>(batch.size());
+        List<AIUsageEvent> pending = batch;
+        long backoffMs = flushBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AIUsageEvent.class).insert(pending).execute();
+                inserted.addAll(pending);
+                pending = List.of();
+            } catch (BulkOperationException e) {
+                Set<Integer> failed = new HashSet<>();
+                e.getErrors().forEach(error -> failed.add(error.getIndex()));
+                List<AIUsageEvent> retry = new ArrayList<>(failed.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    (failed.contains(i) ? retry : inserted).add(pending.get(i));
+                }
+                pending = retry;
+                logger.warn("Failed to write {} AI usage events (attempt {}/{}): {}",
+                        pending.size(), attempt, flushMaxAttempts, e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write {} AI usage events (attempt {}/{}): {}",
+                        pending.size(), attempt, flushMaxAttempts, e.getMessage());
+            }
+            if (pending.isEmpty() || attempt >= flushMaxAttempts) {
+                break;
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                break;
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+
+        written.increment(inserted.size());
+        if (!pending.isEmpty()) {
+            dropped.increment(pending.size());
+            logger.error("Dropped {} AI usage events after {} write attempts", pending.size(), flushMaxAttempts);
+        }
+        return inserted;
+    }
+
+    private static void add(long[] tokens, AIUsageEvent event) {
+        tokens[0] += event.getPromptTokens();
+        tokens[1] += event.getCompletionTokens();
+        tokens[2] += event.getTotalTokens();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Not interrupted: the worker notices within one flush interval and writes what is queued
+        running = false;
+        worker.join(flushIntervalMs + TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private record DayKey(String userId, LocalDate date) {}
+
+    private record FeatureKey(String userId, LocalDate date, AIFeature feature) {}
+}
@@ -0,0 +1,281 @@
+package com.arribot.service;
+
+import com.arribot.model.AIFeature;
+import com.arribot.model.AIUsage;
+import com.arribot.model.AIUsageEvent;
+import com.arribot.model.AIUsageRollup;
+import com.arribot.model.AIUsageRollup.Period;
+import com.arribot.repository.AIUsageRollupRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains weekly and monthly usage rollups per user and platform-wide.
+ *
+ * Every change applied to a daily {@link com.arribot.model.AIUsage} document is
+ * mirrored here as an upsert with $inc, so reporting over any range reads one
+ * document per week or month instead of scanning the daily collection. Closed periods
+ * are rebuilt from the daily documents and the event log by the nightly reconciliation.
+ */
+@Service
+public class AIUsageRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIUsageRollupService.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final AIUsageRollupRepository rollupRepository;
+
+    public AIUsageRollupService(MongoTemplate mongoTemplate, AIUsageRollupRepository rollupRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.rollupRepository = rollupRepository;
+    }
+
+    // ─── Incremental updates ───────────────────────────────────────────────────
+
+    public void recordRequest(String userId, LocalDate date, AIFeature feature, int delta) {
+        Update update = new Update()
+                .inc("totalRequests", delta)
+                .inc("featureRequests." + feature.name(), delta);
+        apply(userId, date, update);
+    }
+
+    public void recordTokens(String userId, LocalDate date, AIFeature feature,
+                             long promptTokens, long completionTokens, long totalTokens) {
+        Update update = new Update()
+                .inc("promptTokensUsed", promptTokens)
+                .inc("completionTokensUsed", completionTokens)
+                .inc("totalTokensUsed", totalTokens);
+        if (feature != null) {
+            update.inc("featureTokens." + feature.name(), totalTokens);
+        }
+        apply(userId, date, update);
+    }
+
+    /**
+     * Apply the same increment to the user's and the platform's week and month rollups in one round trip.
+     */
+    private void apply(String userId, LocalDate date, Update increment) {
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AIUsageRollup.class);
+        for (String owner : List.of(userId, AIUsageRollup.ALL_USERS)) {
+            for (Period period : Period.values()) {
+                LocalDate start = periodStart(period, date);
+                Query query = rollupQuery(owner, period, start);
+                Update update = Update.fromDocument(increment.getUpdateObject())
+                        .setOnInsert("periodKey", periodKey(period, start))
+                        .set("updatedAt", LocalDateTime.now());
+                bulk.upsert(query, update);
+                queries.add(query);
+                updates.add(update);
+            }
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            retryDuplicateUpserts(userId, e, queries, updates);
+        } catch (RuntimeException e) {
+            // Rollups are reporting data; never fail the user's request over them
+            logger.error("Failed to update usage rollups for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Two first upserts of a period race on user_period_start_idx and the loser fails with a
+     * duplicate key. The bulk is unordered, so every other upsert was applied; only the failed
+     * ones are retried, and now find the document the winner created.
+     */
+    private void retryDuplicateUpserts(String userId, BulkOperationException e, List<Query> queries, List<Update> updates) {
+        for (BulkWriteError error : e.getErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                logger.error("Failed to update usage rollup for user {}: {}", userId, error.getMessage());
+                continue;
+            }
+            try {
+                mongoTemplate.upsert(queries.get(error.getIndex()), updates.get(error.getIndex()), AIUsageRollup.class);
+            } catch (RuntimeException retryError) {
+                logger.error("Failed to update usage rollup for user {} on retry: {}", userId, retryError.getMessage());
+            }
+        }
+    }
+
+    // ─── Rebuild ───────────────────────────────────────────────────────────────
+
+    /**
+     * Recompute a period's rollups for every user and the platform from the sources the
+     * increments come from: request and token totals from the daily usage documents, tokens
+     * per feature from the event log. Repairs increments lost to failed writes.
+     *
+     * Overwrites the documents, so should run only once the period is over and nothing
+     * increments it any more.
+     */
+    public void rebuild(Period period, LocalDate start) {
+        LocalDate end = switch (period) {
+            case WEEK  -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+        Map<String, AIUsageRollup> rebuilt = new HashMap<>();
+        AIUsageRollup platform = rebuilt.computeIfAbsent(AIUsageRollup.ALL_USERS, owner -> new AIUsageRollup());
+
+        Aggregation daily = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("date").gte(start.toString()).lt(end.toString())),
+                Aggregation.group("userId")
+                        .sum("totalRequests").as("totalRequests")
+                        .sum("promptTokensUsed").as("promptTokensUsed")
+                        .sum("completionTokensUsed").as("completionTokensUsed")
+                        .sum("totalTokensUsed").as("totalTokensUsed")
+                        .sum("chatMessages").as(AIFeature.CHAT.name())
+                        .sum("flashcardsGenerated").as(AIFeature.FLASHCARDS.name())
+                        .sum("quizzesGenerated").as(AIFeature.QUIZ.name())
+                        .sum("summariesGenerated").as(AIFeature.SUMMARY.name())
+                        .sum("learningPathsGenerated").as(AIFeature.LEARNING_PATH.name())
+                        .sum("resumeAnalysesGenerated").as(AIFeature.RESUME_ANALYSIS.name()));
+        for (Document doc : mongoTemplate.aggregate(daily, AIUsage.class, Document.class)) {
+            AIUsageRollup rollup = rebuilt.computeIfAbsent(doc.getString("_id"), owner -> new AIUsageRollup());
+            for (AIUsageRollup target : List.of(rollup, platform)) {
+                target.setTotalRequests(target.getTotalRequests() + number(doc, "totalRequests"));
+                target.setPromptTokensUsed(target.getPromptTokensUsed() + number(doc, "promptTokensUsed"));
+                target.setCompletionTokensUsed(target.getCompletionTokensUsed() + number(doc, "completionTokensUsed"));
+                target.setTotalTokensUsed(target.getTotalTokensUsed() + number(doc, "totalTokensUsed"));
+                for (AIFeature feature : AIFeature.values()) {
+                    long requests = number(doc, feature.name());
+                    if (requests != 0) {
+                        target.getFeatureRequests().merge(feature.name(), requests, Long::sum);
+                    }
+                }
+            }
+        }
+
+        Aggregation events = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("timestamp").gte(start.atStartOfDay()).lt(end.atStartOfDay())),
+                Aggregation.group("meta.userId", "meta.feature").sum("totalTokens").as("totalTokens"));
+        for (Document doc : mongoTemplate.aggregate(events, AIUsageEvent.class, Document.class)) {
+            Document key = doc.get("_id", Document.class);
+            String feature = key.getString("feature");
+            long tokens = number(doc, "totalTokens");
+            if (feature == null || tokens == 0) continue;
+            AIUsageRollup rollup = rebuilt.computeIfAbsent(key.getString("userId"), owner -> new AIUsageRollup());
+            rollup.getFeatureTokens().merge(feature, tokens, Long::sum);
+            platform.getFeatureTokens().merge(feature, tokens, Long::sum);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AIUsageRollup.class);
+        rebuilt.forEach((owner, rollup) -> bulk.upsert(rollupQuery(owner, period, start), new Update()
+                .set("periodKey", periodKey(period, start))
+                .set("totalRequests", rollup.getTotalRequests())
+                .set("featureRequests", rollup.getFeatureRequests())
+                .set("promptTokensUsed", rollup.getPromptTokensUsed())
+                .set("completionTokensUsed", rollup.getCompletionTokensUsed())
+                .set("totalTokensUsed", rollup.getTotalTokensUsed())
+                .set("featureTokens", rollup.getFeatureTokens())
+                .set("updatedAt", now)));
+        bulk.execute();
+        logger.info("Rebuilt {} {} usage rollups starting {}", rebuilt.size(), period, start);
+    }
+
+    private static Query rollupQuery(String owner, Period period, LocalDate start) {
+        return new Query(Criteria.where("userId").is(owner)
+                .and("period").is(period)
+                .and("periodStart").is(start.toString()));
+    }
+
+    private static long number(Document doc, String field) {
+        return doc.get(field) instanceof Number n ? n.longValue() : 0L;
+    }
+
+    // ─── Range queries ─────────────────────────────────────────────────────────
+
+    /**
+     * Rollup documents whose period overlaps [from, to], oldest first.
+     */
+    public List<AIUsageRollup> getRollups(String userId, Period period, LocalDate from, LocalDate to) {
+        String owner = userId != null ? userId : AIUsageRollup.ALL_USERS;
+        return rollupRepository.findRange(owner, period,
+                periodStart(period, from).toString(), periodStart(period, to).toString());
+    }
+
+    /**
+     * Totals over every period overlapping [from, to].
+     */
+    public RollupTotals getTotals(String userId, Period period, LocalDate from, LocalDate to) {
+        RollupTotals totals = new RollupTotals();
+        for (AIUsageRollup rollup : getRollups(userId, period, from, to)) {
+            totals.add(rollup);
+        }
+        return totals;
+    }
+
+    // ─── Period helpers ────────────────────────────────────────────────────────
+
+    static LocalDate periodStart(Period period, LocalDate date) {
+        return switch (period) {
+            case WEEK  -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    static String periodKey(Period period, LocalDate start) {
+        return switch (period) {
+            case WEEK  -> String.format("%d-W%02d",
+                    start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH -> String.format("%d-%02d", start.getYear(), start.getMonthValue());
+        };
+    }
+
+    // ─── Totals DTO ────────────────────────────────────────────────────────────
+
+    public static class RollupTotals {
+        private long totalRequests;
+        private long promptTokensUsed;
+        private long completionTokensUsed;
+        private long totalTokensUsed;
+        private final Map<String, Long> featureRequests = new HashMap<>();
+        private final Map<String, Long> featureTokens = new HashMap<>();
+
+        void add(AIUsageRollup rollup) {
+            totalRequests        += nullToZero(rollup.getTotalRequests());
+            promptTokensUsed     += nullToZero(rollup.getPromptTokensUsed());
+            completionTokensUsed += nullToZero(rollup.getCompletionTokensUsed());
+            totalTokensUsed      += nullToZero(rollup.getTotalTokensUsed());
+            if (rollup.getFeatureRequests() != null) {
+                rollup.getFeatureRequests().forEach((k, v) -> featureRequests.merge(k, v, Long::sum));
+            }
+            if (rollup.getFeatureTokens() != null) {
+                rollup.getFeatureTokens().forEach((k, v) -> featureTokens.merge(k, v, Long::sum));
+            }
+        }
+
+        private static long nullToZero(Long value) {
+            return value == null ? 0L : value;
+        }
+
+        public long getTotalRequests()              { return totalRequests; }
+        public long getPromptTokensUsed()           { return promptTokensUsed; }
+        public long getCompletionTokensUsed()       { return completionTokensUsed; }
+        public long getTotalTokensUsed()            { return totalTokensUsed; }
+        public Map<String, Long> getFeatureRequests() { return featureRequests; }
+        public Map<String, Long> getFeatureTokens()   { return featureTokens; }
+    }
+}
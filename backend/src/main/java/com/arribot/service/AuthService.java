@@ -72,6 +72,11 @@ public class AuthService {
 
         User user = userOpt.get();
 
+        // Expired codes are cleared by the retention job, so a missing one is an expired one
+        if (user.getOtp() == null || user.getOtpExpiry() == null) {
+            throw new RuntimeException("OTP expired. Please request a new one.");
+        }
+
         // Check if OTP matches
         if (!user.getOtp().equals(otp)) {
             throw new RuntimeException("Invalid OTP");
@@ -1,49 +1,303 @@
 package com.arribot.service;
 
 import com.arribot.model.AIFeature;
+import com.arribot.model.ChatBucket;
 import com.arribot.model.ChatMessage;
+import com.arribot.model.ChatSession;
+import com.arribot.model.CursorPage;
 import com.arribot.model.GroqResponse;
-import com.arribot.repository.ChatMessageRepository;
+import com.arribot.service.gateway.AIGateway;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class ChatService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+
+    // Pre-bucketing storage: one document per exchange
+    private static final String LEGACY_COLLECTION = "chat_messages";
+    private static final int MIGRATION_BATCH_BUCKETS = 100;
+
     private final GroqService groqService;
-    private final ChatMessageRepository chatMessageRepository;
-    private final AILimitsService aiLimitsService;
+    private final MongoTemplate mongoTemplate;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final AIGateway aiGateway;
+
+    @Value("${chat.bucket.size:50}")
+    private int bucketSize;
+
+    @Value("${pagination.default.size:20}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max.size:100}")
+    private int maxPageSize;
 
     public ChatService(GroqService groqService,
-                       ChatMessageRepository chatMessageRepository,
-                       AILimitsService aiLimitsService) {
+                       MongoTemplate mongoTemplate,
+                       ReactiveMongoTemplate reactiveMongoTemplate,
+                       AIGateway aiGateway) {
         this.groqService = groqService;
-        this.chatMessageRepository = chatMessageRepository;
-        this.aiLimitsService = aiLimitsService;
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.aiGateway = aiGateway;
     }
 
     public ChatMessage sendMessage(String message, String sessionId, String userId) throws IOException {
-        aiLimitsService.checkAndIncrementUsage(userId, AIFeature.CHAT);
-
         if (sessionId == null || sessionId.isEmpty()) {
             sessionId = UUID.randomUUID().toString();
         }
 
-        GroqResponse groqResponse = groqService.chat(message);
-        aiLimitsService.recordTokenUsage(userId, groqResponse);
+        GroqResponse groqResponse = aiGateway.call(userId, AIFeature.CHAT, () -> groqService.chat(message));
         logger.info("Chat response generated using Groq");
 
-        ChatMessage chatMessage = new ChatMessage(sessionId, message, groqResponse.getText());
-        return chatMessageRepository.save(chatMessage);
+        ChatBucket.Entry entry = new ChatBucket.Entry(
+                new ObjectId().toHexString(), message, groqResponse.getText(), LocalDateTime.now());
+        append(sessionId, userId, entry);
+        return toMessage(sessionId, userId, entry);
     }
 
-    public List<ChatMessage> getChatHistory(String sessionId) {
-        return chatMessageRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+    /**
+     * $push onto the session's open bucket, creating a new one when all are full. The
+     * count filter keeps a bucket from growing past the size; $slice is the hard cap.
+     */
+    private void append(String sessionId, String userId, ChatBucket.Entry entry) {
+        Query open = new Query(Criteria.where("sessionId").is(sessionId).and("count").lt(bucketSize));
+        Update update = new Update()
+                .push("messages").slice(bucketSize).each(entry)
+                .inc("count", 1)
+                .set("lastTimestamp", entry.getTimestamp())
+                .setOnInsert("userId", userId)
+                .setOnInsert("firstTimestamp", entry.getTimestamp());
+        mongoTemplate.upsert(open, update, ChatBucket.class);
+    }
+
+    /**
+     * Oldest first, so pages can be appended to the conversation as they arrive.
+     * The cursor is the position (bucket, index) of the first message of the next page.
+     * Buckets are read until the page is full, since concurrent first appends can leave
+     * more than one bucket of a session partly filled.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<ChatMessage> getChatHistory(String sessionId, String cursor, Integer limit) {
+        int size = limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
+        Position start = cursor == null || cursor.isBlank() ? null : decode(cursor);
+
+        Criteria criteria = Criteria.where("sessionId").is(sessionId);
+        if (start != null) {
+            criteria.and("id").gte(new ObjectId(start.bucketId()));
+        }
+        // With full buckets the first batch covers the page plus one look-ahead message
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(size / bucketSize + 2);
+
+        List<ChatMessage> items = new ArrayList<>();
+        String nextCursor = null;
+        try (Stream<ChatBucket> buckets = mongoTemplate.stream(query, ChatBucket.class)) {
+            for (Iterator<ChatBucket> it = buckets.iterator(); it.hasNext() && nextCursor == null; ) {
+                ChatBucket bucket = it.next();
+                List<ChatBucket.Entry> entries = bucket.getMessages() != null ? bucket.getMessages() : List.of();
+                int from = start != null && bucket.getId().equals(start.bucketId()) ? start.index() : 0;
+                for (int i = from; i < entries.size(); i++) {
+                    if (items.size() == size) {
+                        nextCursor = encode(new Position(bucket.getId(), i));
+                        break;
+                    }
+                    items.add(toMessage(sessionId, bucket.getUserId(), entries.get(i)));
+                }
+            }
+        }
+        return new CursorPage<>(items, nextCursor, nextCursor != null);
+    }
+
+    /**
+     * The whole session oldest first, emitted bucket by bucket as the Mongo cursor is read.
+     */
+    public Flux<ChatMessage> streamChatHistory(String sessionId) {
+        Query query = new Query(Criteria.where("sessionId").is(sessionId))
+                .with(Sort.by(Sort.Direction.ASC, "id"));
+        return reactiveMongoTemplate.find(query, ChatBucket.class)
+                .concatMapIterable(bucket -> bucket.getMessages() == null ? List.<ChatMessage>of()
+                        : bucket.getMessages().stream()
+                                .map(entry -> toMessage(sessionId, bucket.getUserId(), entry))
+                                .toList());
+    }
+
+    /**
+     * A user's sessions, most recently active first, each with its latest exchange — one
+     * aggregation over the user's buckets, walking user_last_idx.
+     */
+    public List<ChatSession> getSessions(String userId, Integer limit) {
+        int size = limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").is(userId)),
+                Aggregation.sort(Sort.Direction.DESC, "lastTimestamp"),
+                Aggregation.project("sessionId", "lastTimestamp", "count")
+                        .and(ArrayOperators.ArrayElemAt.arrayOf("messages").elementAt(-1)).as("lastMessage"),
+                Aggregation.group("sessionId")
+                        .first("lastTimestamp").as("lastTimestamp")
+                        .first("lastMessage").as("lastMessage")
+                        .sum("count").as("messageCount"),
+                Aggregation.sort(Sort.Direction.DESC, "lastTimestamp"),
+                Aggregation.limit(size),
+                Aggregation.project("lastTimestamp", "lastMessage", "messageCount")
+                        .and("_id").as("sessionId")
+        );
+        return mongoTemplate.aggregate(aggregation, ChatBucket.class, ChatSession.class).getMappedResults();
+    }
+
+    /**
+     * Moves per-message documents from chat_messages into buckets, oldest first per session.
+     * Bucket ids are derived from the first message's time so they sort before any bucket
+     * created since. Legacy messages carry no userId, so their sessions are not listed per user.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyMessages() {
+        if (!mongoTemplate.collectionExists(LEGACY_COLLECTION)) return;
+
+        Query legacy = new Query().with(Sort.by("sessionId", "timestamp", "id"));
+        List<ChatBucket> pending = new ArrayList<>();
+        ChatBucket current = null;
+        int migrated = 0;
+        try (Stream<ChatMessage> messages = mongoTemplate.stream(legacy, ChatMessage.class, LEGACY_COLLECTION)) {
+            for (Iterator<ChatMessage> it = messages.iterator(); it.hasNext(); ) {
+                ChatMessage message = it.next();
+                if (current == null || !current.getSessionId().equals(message.getSessionId())
+                        || current.getCount() == bucketSize) {
+                    if (current != null) pending.add(current);
+                    if (pending.size() == MIGRATION_BATCH_BUCKETS) {
+                        migrated += flushMigrated(pending);
+                    }
+                    current = newBucket(message);
+                }
+                current.getMessages().add(new ChatBucket.Entry(
+                        message.getId(), message.getUserMessage(), message.getAiResponse(), message.getTimestamp()));
+                current.setCount(current.getCount() + 1);
+                current.setLastTimestamp(message.getTimestamp());
+            }
+        }
+        if (current != null) pending.add(current);
+        migrated += flushMigrated(pending);
+        if (migrated > 0) {
+            logger.info("Migrated {} chat messages into buckets", migrated);
+        }
     }
+
+    private ChatBucket newBucket(ChatMessage first) {
+        LocalDateTime time = first.getTimestamp() != null ? first.getTimestamp() : LocalDateTime.now();
+        ObjectId id = new ObjectId(Date.from(time.atZone(ZoneId.systemDefault()).toInstant()));
+        return new ChatBucket(id.toHexString(), first.getSessionId(), null, 0, first.getTimestamp(), null, new ArrayList<>());
+    }
+
+    /**
+     * Insert the finished buckets, then drop the messages they now hold.
+     *
+     * Messages a bucket already holds are left out first: if an earlier run stopped between
+     * the insert and the delete, they are still in chat_messages and would otherwise be
+     * bucketed a second time.
+     */
+    private int flushMigrated(List<ChatBucket> buckets) {
+        if (buckets.isEmpty()) return 0;
+
+        List<String> ids = buckets.stream()
+                .flatMap(bucket -> bucket.getMessages().stream())
+                .map(ChatBucket.Entry::getId)
+                .toList();
+        Set<String> alreadyMoved = alreadyBucketed(buckets, ids);
+        List<ChatBucket> toInsert = new ArrayList<>();
+        for (ChatBucket bucket : buckets) {
+            bucket.getMessages().removeIf(entry -> alreadyMoved.contains(entry.getId()));
+            if (bucket.getMessages().isEmpty()) continue;
+            bucket.setCount(bucket.getMessages().size());
+            bucket.setFirstTimestamp(bucket.getMessages().get(0).getTimestamp());
+            bucket.setLastTimestamp(bucket.getMessages().get(bucket.getMessages().size() - 1).getTimestamp());
+            toInsert.add(bucket);
+        }
+        if (!toInsert.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatBucket.class).insert(toInsert).execute();
+        }
+
+        List<ObjectId> legacyIds = ids.stream().map(ObjectId::new).toList();
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(legacyIds)), LEGACY_COLLECTION);
+        buckets.clear();
+        return ids.size() - alreadyMoved.size();
+    }
+
+    /**
+     * Which of these message ids an existing bucket of their sessions already holds.
+     */
+    private Set<String> alreadyBucketed(List<ChatBucket> buckets, List<String> ids) {
+        Set<String> sessions = new HashSet<>();
+        buckets.forEach(bucket -> sessions.add(bucket.getSessionId()));
+        Query existing = new Query(Criteria.where("sessionId").in(sessions).and("messages.id").in(ids));
+        existing.fields().include("messages.id");
+
+        Set<String> wanted = new HashSet<>(ids);
+        Set<String> found = new HashSet<>();
+        for (ChatBucket bucket : mongoTemplate.find(existing, ChatBucket.class)) {
+            for (ChatBucket.Entry entry : bucket.getMessages()) {
+                if (wanted.contains(entry.getId())) {
+                    found.add(entry.getId());
+                }
+            }
+        }
+        return found;
+    }
+
+    private static ChatMessage toMessage(String sessionId, String userId, ChatBucket.Entry entry) {
+        return new ChatMessage(entry.getId(), sessionId, userId,
+                entry.getUserMessage(), entry.getAiResponse(), entry.getTimestamp());
+    }
+
+    private static String encode(Position position) {
+        String raw = position.bucketId() + "|" + position.index();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            String bucketId = sep < 0 ? "" : raw.substring(0, sep);
+            if (!ObjectId.isValid(bucketId)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Position(bucketId, Integer.parseInt(raw.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Position(String bucketId, int index) {}
 }
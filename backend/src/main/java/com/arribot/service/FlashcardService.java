@@ -1,73 +1,263 @@
 package com.arribot.service;
 
 import com.arribot.model.AIFeature;
+import com.arribot.model.CursorPage;
 import com.arribot.model.Flashcard;
+import com.arribot.model.FlashcardDeck;
 import com.arribot.model.GroqResponse;
+import com.arribot.repository.FlashcardDeckReactiveRepository;
+import com.arribot.repository.FlashcardDeckRepository;
+import com.arribot.repository.FlashcardReactiveRepository;
 import com.arribot.repository.FlashcardRepository;
+import com.arribot.repository.KeysetPager;
+import com.arribot.service.gateway.AIGateway;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 public class FlashcardService {
 
     private static final Logger logger = LoggerFactory.getLogger(FlashcardService.class);
+
+    // Listing order: newest first, then by the id of the card or its deck descending, then deck position
+    private static final Comparator<Flashcard> LISTING_ORDER = Comparator
+            .comparing(Flashcard::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(card -> sourceId(card.getId()), Comparator.reverseOrder())
+            .thenComparingInt(card -> deckPosition(card.getId()));
+
     private final GroqService groqService;
     private final FlashcardRepository flashcardRepository;
+    private final FlashcardReactiveRepository flashcardReactiveRepository;
+    private final FlashcardDeckRepository flashcardDeckRepository;
+    private final FlashcardDeckReactiveRepository flashcardDeckReactiveRepository;
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPager keysetPager;
     private final Gson gson;
-    private final AILimitsService aiLimitsService;
+    private final AIGateway aiGateway;
+
+    @Value("${flashcards.storage.deck:false}")
+    private boolean deckMode;
 
     public FlashcardService(GroqService groqService,
                             FlashcardRepository flashcardRepository,
-                            AILimitsService aiLimitsService) {
+                            FlashcardReactiveRepository flashcardReactiveRepository,
+                            FlashcardDeckRepository flashcardDeckRepository,
+                            FlashcardDeckReactiveRepository flashcardDeckReactiveRepository,
+                            MongoTemplate mongoTemplate,
+                            KeysetPager keysetPager,
+                            AIGateway aiGateway) {
         this.groqService = groqService;
         this.flashcardRepository = flashcardRepository;
+        this.flashcardReactiveRepository = flashcardReactiveRepository;
+        this.flashcardDeckRepository = flashcardDeckRepository;
+        this.flashcardDeckReactiveRepository = flashcardDeckReactiveRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.keysetPager = keysetPager;
         this.gson = new Gson();
-        this.aiLimitsService = aiLimitsService;
+        this.aiGateway = aiGateway;
     }
 
     public List<Flashcard> generateFlashcards(String topic, int count, String userId) throws IOException {
-        aiLimitsService.checkAndIncrementUsage(userId, AIFeature.FLASHCARDS);
 
-        GroqResponse groqResponse = groqService.generateFlashcards(topic, count);
-        aiLimitsService.recordTokenUsage(userId, groqResponse);
+        GroqResponse groqResponse = aiGateway.call(userId, AIFeature.FLASHCARDS,
+                () -> groqService.generateFlashcards(topic, count));
         logger.info("Flashcards generated using Groq");
 
-        List<Flashcard> flashcards = new ArrayList<>();
+        List<FlashcardDeck.Card> cards;
         try {
-            String jsonString = extractJson(groqResponse.getText());
-            JsonArray jsonArray = gson.fromJson(jsonString, JsonArray.class);
-
-            int itemsToProcess = Math.min(jsonArray.size(), count);
-            logger.info("Processing {} flashcards (requested: {}, received: {})", itemsToProcess, count, jsonArray.size());
-
-            for (int i = 0; i < itemsToProcess; i++) {
-                JsonObject obj = jsonArray.get(i).getAsJsonObject();
-                String question = obj.get("question").getAsString();
-                String answer = obj.get("answer").getAsString();
-                flashcards.add(flashcardRepository.save(new Flashcard(topic, question, answer)));
-            }
+            cards = parseCards(groqResponse.getText(), count);
         } catch (Exception e) {
             logger.error("Error parsing flashcards from AI response", e);
             throw new IOException("Failed to parse flashcards: " + e.getMessage());
         }
+        if (cards.isEmpty()) {
+            throw new IOException("Failed to parse flashcards: no valid question/answer pairs in AI response");
+        }
+
+        return deckMode ? saveAsDeck(userId, topic, cards) : saveAsCards(userId, topic, cards);
+    }
 
+    /**
+     * Validate the whole deck in memory before anything is written; malformed entries are dropped.
+     */
+    private List<FlashcardDeck.Card> parseCards(String response, int count) {
+        JsonArray jsonArray = gson.fromJson(extractJson(response), JsonArray.class);
+        int itemsToProcess = Math.min(jsonArray.size(), count);
+        logger.info("Processing {} flashcards (requested: {}, received: {})", itemsToProcess, count, jsonArray.size());
+
+        List<FlashcardDeck.Card> cards = new ArrayList<>(itemsToProcess);
+        for (int i = 0; i < itemsToProcess; i++) {
+            JsonElement element = jsonArray.get(i);
+            if (!element.isJsonObject()) continue;
+            JsonObject obj = element.getAsJsonObject();
+            String question = text(obj, "question");
+            String answer = text(obj, "answer");
+            if (question == null || answer == null) {
+                logger.warn("Skipping malformed flashcard at index {}", i);
+                continue;
+            }
+            cards.add(new FlashcardDeck.Card(question, answer));
+        }
+        return cards;
+    }
+
+    private static String text(JsonObject obj, String field) {
+        JsonElement value = obj.get(field);
+        if (value == null || !value.isJsonPrimitive()) return null;
+        String text = value.getAsString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * One unordered insertMany for the whole deck. Ids are assigned up front so the
+     * returned cards carry them without reading anything back.
+     */
+    private List<Flashcard> saveAsCards(String userId, String topic, List<FlashcardDeck.Card> cards) {
+        List<Flashcard> flashcards = new ArrayList<>(cards.size());
+        for (FlashcardDeck.Card card : cards) {
+            Flashcard flashcard = new Flashcard(userId, topic, card.getQuestion(), card.getAnswer());
+            flashcard.setId(new ObjectId().toHexString());
+            flashcards.add(flashcard);
+        }
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flashcard.class)
+                .insert(flashcards)
+                .execute();
         return flashcards;
     }
 
-    public List<Flashcard> getFlashcardsByTopic(String topic) {
-        return flashcardRepository.findByTopicOrderByCreatedAtDesc(topic);
+    private List<Flashcard> saveAsDeck(String userId, String topic, List<FlashcardDeck.Card> cards) {
+        FlashcardDeck deck = mongoTemplate.insert(new FlashcardDeck(userId, topic, cards));
+        return toFlashcards(deck);
+    }
+
+    /**
+     * Cards of a deck in the same shape as individually stored ones; ids are "deckId:index".
+     */
+    private static List<Flashcard> toFlashcards(FlashcardDeck deck) {
+        List<Flashcard> flashcards = new ArrayList<>(deck.getCards().size());
+        for (int i = 0; i < deck.getCards().size(); i++) {
+            FlashcardDeck.Card card = deck.getCards().get(i);
+            flashcards.add(new Flashcard(deck.getId() + ":" + i, deck.getUserId(), deck.getTopic(),
+                    card.getQuestion(), card.getAnswer(), deck.getCreatedAt()));
+        }
+        return flashcards;
+    }
+
+    public List<Flashcard> getFlashcardsByTopic(String userId, String topic) {
+        List<Flashcard> flashcards = flashcardRepository.findByUserIdAndTopicOrderByCreatedAtDesc(userId, topic);
+        List<FlashcardDeck> decks = flashcardDeckRepository.findByUserIdAndTopicOrderByCreatedAtDesc(userId, topic);
+        if (decks.isEmpty()) {
+            return flashcards;
+        }
+
+        // Cards saved before deck mode was switched on (or after it was switched off) stay visible
+        List<Flashcard> merged = new ArrayList<>(flashcards);
+        decks.forEach(deck -> merged.addAll(toFlashcards(deck)));
+        merged.sort(Comparator.comparing(Flashcard::getCreatedAt,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
+    }
+
+    /**
+     * The user's decks newest first, one page at a time.
+     */
+    public CursorPage<FlashcardDeck> getDecks(String userId, String cursor, Integer limit) {
+        return keysetPager.page(FlashcardDeck.class, Criteria.where("userId").is(userId),
+                "createdAt", Sort.Direction.DESC, cursor, limit);
+    }
+
+    /**
+     * The user's cards newest first, one page at a time, whether stored one per document or as decks.
+     *
+     * Both collections are paged from the same (createdAt, id) position and merged; a deck is
+     * never split, so a page can exceed the limit by the rest of its last deck. The cursor is
+     * the position of the last card or deck taken, so nothing is skipped or repeated.
+     */
+    public CursorPage<Flashcard> getFlashcards(String userId, String cursor, Integer limit) {
+        Criteria owner = Criteria.where("userId").is(userId);
+        CursorPage<Flashcard> cards = keysetPager.page(Flashcard.class, owner,
+                "createdAt", Sort.Direction.DESC, cursor, limit);
+        CursorPage<FlashcardDeck> decks = keysetPager.page(FlashcardDeck.class, owner,
+                "createdAt", Sort.Direction.DESC, cursor, limit);
+        if (decks.getItems().isEmpty()) {
+            return cards;
+        }
+
+        int size = keysetPager.pageSize(limit);
+        List<Flashcard> items = new ArrayList<>();
+        int c = 0;
+        int d = 0;
+        Object last = null;
+        while (items.size() < size) {
+            boolean cardsLeft = c < cards.getItems().size();
+            boolean decksLeft = d < decks.getItems().size();
+            // A drained page whose collection has more could still hold the next item in order
+            if ((!cardsLeft && cards.isHasMore()) || (!decksLeft && decks.isHasMore())
+                    || (!cardsLeft && !decksLeft)) {
+                break;
+            }
+            if (cardsLeft && (!decksLeft || comesFirst(cards.getItems().get(c), decks.getItems().get(d)))) {
+                Flashcard card = cards.getItems().get(c++);
+                items.add(card);
+                last = card;
+            } else {
+                FlashcardDeck deck = decks.getItems().get(d++);
+                items.addAll(toFlashcards(deck));
+                last = deck;
+            }
+        }
+
+        boolean hasMore = c < cards.getItems().size() || d < decks.getItems().size()
+                || cards.isHasMore() || decks.isHasMore();
+        String nextCursor = !hasMore ? null : last instanceof FlashcardDeck deck
+                ? keysetPager.cursorOf(deck, FlashcardDeck.class, "createdAt")
+                : keysetPager.cursorOf((Flashcard) last, Flashcard.class, "createdAt");
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * All of the user's cards newest first, emitted as the Mongo cursors are read. Cards stored
+     * one per document and decks are merged in the same order as {@link #getFlashcards}.
+     */
+    public Flux<Flashcard> streamFlashcards(String userId) {
+        Flux<Flashcard> cards = flashcardReactiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId);
+        Flux<Flashcard> deckCards = flashcardDeckReactiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId)
+                .concatMapIterable(FlashcardService::toFlashcards);
+        return Flux.mergeComparing(LISTING_ORDER, cards, deckCards);
+    }
+
+    private static boolean comesFirst(Flashcard card, FlashcardDeck deck) {
+        Flashcard deckHead = new Flashcard(deck.getId() + ":0", deck.getUserId(), deck.getTopic(), null, null,
+                deck.getCreatedAt());
+        return LISTING_ORDER.compare(card, deckHead) < 0;
+    }
+
+    private static String sourceId(String cardId) {
+        int sep = cardId.indexOf(':');
+        return sep < 0 ? cardId : cardId.substring(0, sep);
     }
 
-    public List<Flashcard> getAllFlashcards() {
-        return flashcardRepository.findAll();
+    private static int deckPosition(String cardId) {
+        int sep = cardId.indexOf(':');
+        return sep < 0 ? 0 : Integer.parseInt(cardId.substring(sep + 1));
     }
 
     private String extractJson(String response) {
@@ -1,59 +1,76 @@
 package com.arribot.service;
 
+import com.arribot.model.AIFeature;
+import com.arribot.service.gateway.AIGateway;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import okhttp3.*;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Locale;
+import java.util.Set;
 
 @Service
 public class GroqResumeAnalyzer {
 
-    @Value("${groq.api.key:}")
-    private String apiKey;
+    // Cap on skills the model may add to the dictionary matches, which bounds the completion
+    private static final int MAX_ADDITIONAL_SKILLS = 10;
 
-    @Value("${groq.api.url}")
-    private String apiUrl;
-
-    @Value("${groq.model}")
-    private String model;
-
-    private final OkHttpClient client;
+    private final GroqService groqService;
+    private final AIGateway aiGateway;
+    private final SkillExtractor skillExtractor;
     private final Gson gson;
 
-    public GroqResumeAnalyzer() {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .build();
+    public GroqResumeAnalyzer(GroqService groqService, AIGateway aiGateway, SkillExtractor skillExtractor) {
+        this.groqService = groqService;
+        this.aiGateway = aiGateway;
+        this.skillExtractor = skillExtractor;
         this.gson = new Gson();
     }
 
     /**
-     * Analyze resume and extract skills, experience, and recommendations
+     * Analyze resume and extract skills, experience, and recommendations.
+     * Skills are matched locally first; the model only adds the ones the dictionary missed.
+     */
+    public SkillAnalysisResult analyzeResume(String resumeText, String targetRole, String userId) throws IOException {
+        List<String> detectedSkills = skillExtractor.extract(resumeText);
+        String prompt = buildAnalysisPrompt(resumeText, targetRole, detectedSkills);
+        String response = aiGateway.call(userId, AIFeature.RESUME_ANALYSIS,
+                () -> groqService.complete(prompt, 2000)).getText();
+        SkillAnalysisResult result = parseAnalysisResponse(response);
+        result.setDetectedSkills(mergeSkills(detectedSkills, result.getDetectedSkills()));
+        return result;
+    }
+
+    /**
+     * Dictionary matches followed by the model's additions, without case-insensitive repeats
      */
-    public SkillAnalysisResult analyzeResume(String resumeText, String targetRole) throws IOException {
-        String prompt = buildAnalysisPrompt(resumeText, targetRole);
-        String response = callGroqAPI(prompt);
-        return parseAnalysisResponse(response);
+    private List<String> mergeSkills(List<String> detected, List<String> additional) {
+        List<String> merged = new ArrayList<>(detected);
+        Set<String> seen = new HashSet<>();
+        detected.forEach(skill -> seen.add(skill.toLowerCase(Locale.ROOT)));
+        additional.stream()
+                .limit(MAX_ADDITIONAL_SKILLS)
+                .filter(skill -> skill != null && !skill.isBlank() && seen.add(skill.strip().toLowerCase(Locale.ROOT)))
+                .forEach(skill -> merged.add(skill.strip()));
+        return merged;
     }
 
     /**
      * Build the analysis prompt
      */
-    private String buildAnalysisPrompt(String resumeText, String targetRole) {
+    private String buildAnalysisPrompt(String resumeText, String targetRole, List<String> detectedSkills) {
         return String.format("""
             You are an expert career advisor and resume analyzer. Analyze the following resume and provide a detailed skill assessment with quality metrics.
             
             TARGET ROLE: %s
             
+            SKILLS ALREADY DETECTED IN THE RESUME: %s
+            
             RESUME TEXT:
             %s
             
@@ -65,7 +82,7 @@ public class GroqResumeAnalyzer {
             
             Please analyze this resume and provide a JSON response with the following structure:
             {
-              "detectedSkills": ["skill1", "skill2", ...],
+              "additionalSkills": ["skill1", "skill2", ...],
               "experienceYears": <number>,
               "missingSkills": ["skill1", "skill2", ...],
               "recommendedSkills": ["skill1", "skill2", ...],
@@ -92,7 +109,7 @@ public class GroqResumeAnalyzer {
             }
             
             Guidelines:
-            1. Extract ALL technical and soft skills mentioned in the resume
+            1. additionalSkills: ONLY skills clearly stated in the resume that are NOT in the detected list above (at most %d, names only, may be empty). Do not repeat detected skills
             2. Estimate years of experience based on work history
             3. Identify skills commonly required for the TARGET ROLE that are missing
             4. Recommend skills that would make the candidate more competitive FOR THIS SPECIFIC ROLE
@@ -147,54 +164,9 @@ public class GroqResumeAnalyzer {
             - Marketing resume for "Data Scientist": skillMatchScore=15-25, experienceScore=15-25, overallScore=20-30, isSuitable=false
             
             Return ONLY valid JSON, no additional text.
-            """, targetRole != null ? targetRole : "General Software Developer", resumeText);
-    }
-
-    /**
-     * Call Groq API
-     */
-    private String callGroqAPI(String prompt) throws IOException {
-        JsonObject requestBody = new JsonObject();
-        requestBody.addProperty("model", model);
-        
-        JsonArray messages = new JsonArray();
-        JsonObject message = new JsonObject();
-        message.addProperty("role", "user");
-        message.addProperty("content", prompt);
-        messages.add(message);
-        
-        requestBody.add("messages", messages);
-        requestBody.addProperty("temperature", 0.3);
-        requestBody.addProperty("max_tokens", 2000);
-
-        RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-        );
-
-        Request request = new Request.Builder()
-                .url(apiUrl)
-                .addHeader("Authorization", "Bearer " + apiKey)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
-
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Groq API error: " + response.code() + " - " + response.message());
-            }
-
-            String responseBody = response.body().string();
-            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
-            
-            return jsonResponse
-                    .getAsJsonArray("choices")
-                    .get(0)
-                    .getAsJsonObject()
-                    .getAsJsonObject("message")
-                    .get("content")
-                    .getAsString();
-        }
+            """, targetRole != null ? targetRole : "General Software Developer",
+                detectedSkills.isEmpty() ? "(none)" : String.join(", ", detectedSkills),
+                resumeText, MAX_ADDITIONAL_SKILLS);
     }
 
     /**
@@ -219,9 +191,9 @@ public class GroqResumeAnalyzer {
             
             SkillAnalysisResult result = new SkillAnalysisResult();
             
-            // Extract detected skills
-            if (json.has("detectedSkills")) {
-                JsonArray detectedSkills = json.getAsJsonArray("detectedSkills");
+            // Extract skills the dictionary did not detect
+            if (json.has("additionalSkills")) {
+                JsonArray detectedSkills = json.getAsJsonArray("additionalSkills");
                 List<String> skills = new ArrayList<>();
                 detectedSkills.forEach(skill -> skills.add(skill.getAsString()));
                 result.setDetectedSkills(skills);
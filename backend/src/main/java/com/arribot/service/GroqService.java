@@ -117,6 +117,13 @@ public class GroqService {
         return callApi(prompt, 8000);
     }
 
+    /**
+     * Free-form completion for callers that build their own prompt (resume analysis).
+     */
+    public GroqResponse complete(String prompt, int maxTokens) throws IOException {
+        return callApi(prompt, maxTokens);
+    }
+
     // ─── Private HTTP helper ───────────────────────────────────────────────────
 
     private GroqResponse callApi(String prompt, int maxTokens) throws IOException {
@@ -175,7 +182,8 @@ public class GroqService {
             }
 
             logger.info("Groq token usage — prompt: {} completion: {} total: {}", promptTokens, completionTokens, totalTokens);
-            return new GroqResponse(text, promptTokens, completionTokens, totalTokens);
+            String servedBy = json.has("model") ? json.get("model").getAsString() : model;
+            return new GroqResponse(text, promptTokens, completionTokens, totalTokens, servedBy);
         }
     }
 }
@@ -1,20 +1,39 @@
 package com.arribot.service;
 
+import com.arribot.model.AIFeature;
+import com.arribot.model.CursorPage;
 import com.arribot.model.DailyMilestone;
 import com.arribot.model.GroqResponse;
 import com.arribot.model.LearningPath;
+import com.arribot.model.LearningPathSummary;
 import com.arribot.model.WeeklyModule;
+import com.arribot.repository.KeysetPager;
 import com.arribot.repository.LearningPathRepository;
+import com.arribot.service.gateway.AIGateway;
 import com.google.gson.*;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -29,7 +48,16 @@ public class LearningPathService {
     private GroqService groqService;
 
     @Autowired
-    private AILimitsService aiLimitsService;
+    private AIGateway aiGateway;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
 
     /**
      * Generate a new learning path using Groq AI and persist it.
@@ -38,8 +66,8 @@ public class LearningPathService {
         if (weeks < 1 || weeks > 12) throw new IllegalArgumentException("Weeks must be between 1 and 12");
         if (goal == null || goal.trim().isEmpty()) throw new IllegalArgumentException("Goal cannot be empty");
 
-        GroqResponse groqResponse = groqService.generateLearningPath(goal.trim(), weeks);
-        aiLimitsService.recordTokenUsage(userId, groqResponse);
+        GroqResponse groqResponse = aiGateway.call(userId, AIFeature.LEARNING_PATH,
+                () -> groqService.generateLearningPath(goal.trim(), weeks));
 
         String cleaned = groqResponse.getText().trim();
         if (cleaned.startsWith("```")) {
@@ -56,10 +84,38 @@ public class LearningPathService {
     }
 
     /**
-     * Get all learning paths for a user, ordered by createdAt desc.
+     * List a user's learning paths, newest first, as summaries. Weeks and days stay
+     * in Mongo; only the progress counts derived from them are sent back.
+     */
+    public CursorPage<LearningPathSummary> getUserPaths(String userId, String cursor, Integer limit) {
+        return keysetPager.page(LearningPath.class, LearningPathSummary.class, LearningPathService::summaryFields,
+                Criteria.where("userId").is(userId), "createdAt", Sort.Direction.DESC, cursor, limit);
+    }
+
+    /**
+     * All of a user's path summaries newest first, emitted as the Mongo cursor is read.
      */
-    public List<LearningPath> getUserPaths(String userId) {
-        return learningPathRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public Flux<LearningPathSummary> streamUserPaths(String userId) {
+        Query query = new Query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        summaryFields(query.fields());
+        return reactiveMongoTemplate.query(LearningPath.class).as(LearningPathSummary.class).matching(query).all();
+    }
+
+    private static void summaryFields(Field fields) {
+        fields.include("goal", "description", "totalWeeks", "difficultyLevel", "createdAt", "updatedAt");
+        fields.project(MongoExpression.create(
+                "{ $sum: { $map: { input: { $ifNull: ['$weeks', []] }, as: 'w', "
+                        + "in: { $size: { $ifNull: ['$$w.days', []] } } } } }"))
+                .as("totalDays");
+        fields.project(MongoExpression.create(
+                "{ $sum: { $map: { input: { $ifNull: ['$weeks', []] }, as: 'w', "
+                        + "in: { $size: { $filter: { input: { $ifNull: ['$$w.days', []] }, as: 'd', cond: '$$d.completed' } } } } } }"))
+                .as("completedDays");
+    }
+
+    public long countUserPaths(String userId) {
+        return learningPathRepository.countByUserId(userId);
     }
 
     /**
@@ -73,34 +129,70 @@ public class LearningPathService {
     /**
      * Mark a specific day milestone as complete or incomplete.
      */
-    public LearningPath updateMilestoneComplete(String pathId, String userId, int weekNum, int dayNum, boolean completed) {
-        LearningPath path = learningPathRepository.findById(pathId)
-                .filter(p -> p.getUserId().equals(userId))
-                .orElseThrow(() -> new RuntimeException("Learning path not found"));
+    public LearningPath updateMilestoneComplete(String pathId, String userId, int weekNum, int dayNum,
+                                                boolean completed, Long expectedVersion) {
+        return updateMilestones(pathId, userId, List.of(new MilestoneToggle(weekNum, dayNum, completed)), expectedVersion);
+    }
 
-        boolean found = false;
-        for (WeeklyModule week : path.getWeeks()) {
-            if (week.getWeekNumber() == weekNum) {
-                for (DailyMilestone day : week.getDays()) {
-                    if (day.getDayNumber() == dayNum) {
-                        day.setCompleted(completed);
-                        day.setCompletedAt(completed ? LocalDateTime.now() : null);
-                        found = true;
-                        break;
-                    }
-                }
-                break;
-            }
+    /**
+     * Toggle any number of milestones in one write. Each toggle becomes a $set on
+     * weeks.$[wN].days.$[dN] with matching arrayFilters, so only the touched fields are
+     * sent and the rest of the document is never rewritten.
+     *
+     * @param expectedVersion if non-null, the update only applies while the path is still at this version
+     * @throws OptimisticLockingFailureException if the path changed since expectedVersion
+     * @throws IllegalArgumentException if any week/day does not exist in the path
+     */
+    public LearningPath updateMilestones(String pathId, String userId, List<MilestoneToggle> toggles, Long expectedVersion) {
+        if (toggles.isEmpty()) throw new IllegalArgumentException("No milestones to update");
+
+        // Last toggle wins for a repeated week/day; two updates to one element would conflict in Mongo
+        Map<String, MilestoneToggle> distinct = new LinkedHashMap<>();
+        toggles.forEach(t -> distinct.put(t.week() + ":" + t.day(), t));
+
+        Criteria owned = Criteria.where("id").is(pathId).and("userId").is(userId);
+        Query query = new Query(owned);
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
         }
 
-        if (!found) {
-            throw new RuntimeException("Milestone week " + weekNum + " day " + dayNum + " not found");
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update();
+        List<Document> required = new ArrayList<>();
+        int i = 0;
+        for (MilestoneToggle toggle : distinct.values()) {
+            String day = "weeks.$[w" + i + "].days.$[d" + i + "]";
+            update.set(day + ".completed", toggle.completed());
+            update.set(day + ".completedAt", toggle.completed() ? now : null);
+            update.filterArray(Criteria.where("w" + i + ".weekNumber").is(toggle.week()));
+            update.filterArray(Criteria.where("d" + i + ".dayNumber").is(toggle.day()));
+            required.add(new Document("$elemMatch", new Document("weekNumber", toggle.week())
+                    .append("days", new Document("$elemMatch", new Document("dayNumber", toggle.day())))));
+            i++;
         }
+        // Every requested milestone must exist, otherwise nothing is written
+        query.addCriteria(Criteria.where("weeks").all(required.toArray()));
+        update.set("updatedAt", now).inc("version", 1);
 
-        path.setUpdatedAt(LocalDateTime.now());
-        return learningPathRepository.save(path);
+        LearningPath updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), LearningPath.class);
+        if (updated != null) {
+            return updated;
+        }
+
+        // Nothing matched: work out why
+        if (!mongoTemplate.exists(new Query(owned), LearningPath.class)) {
+            throw new RuntimeException("Learning path not found");
+        }
+        if (expectedVersion != null && !mongoTemplate.exists(
+                new Query(owned).addCriteria(Criteria.where("version").is(expectedVersion)), LearningPath.class)) {
+            throw new OptimisticLockingFailureException("Learning path was modified concurrently; reload and retry");
+        }
+        throw new IllegalArgumentException("Milestone not found in learning path");
     }
 
+    public record MilestoneToggle(int week, int day, boolean completed) {}
+
     /**
      * Delete a learning path by ID scoped to user.
      */
@@ -0,0 +1,94 @@
+package com.arribot.service;
+
+import com.arribot.model.Flashcard;
+import com.arribot.model.FlashcardDeck;
+import com.arribot.model.Quiz;
+import com.arribot.model.Summary;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Gives summaries, flashcards, decks and quizzes written before they carried a userId
+ * an owner, so they show up in per-user listings.
+ *
+ * Nothing recorded who generated those documents, so they are all assigned to
+ * ownership.legacy.owner. Runs on its own thread after startup, a batch of ids at a
+ * time found through the userId-prefixed index (a missing field indexes as null),
+ * pausing between batches to keep the load on the primary low.
+ */
+@Service
+public class OwnershipBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnershipBackfillService.class);
+
+    private static final List<Class<?>> OWNED_TYPES = List.of(Summary.class, Flashcard.class, FlashcardDeck.class, Quiz.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${ownership.legacy.owner:legacy}")
+    private String legacyOwner;
+
+    @Value("${ownership.backfill.batch.size:500}")
+    private int batchSize;
+
+    @Value("${ownership.backfill.batch.pause.ms:200}")
+    private long batchPauseMs;
+
+    public OwnershipBackfillService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        Thread worker = new Thread(this::backfillAll, "ownership-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void backfillAll() {
+        for (Class<?> type : OWNED_TYPES) {
+            try {
+                long updated = backfill(type);
+                if (updated > 0) {
+                    logger.info("Assigned {} {} documents to legacy owner '{}'",
+                            updated, mongoTemplate.getCollectionName(type), legacyOwner);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Ownership backfill of {} failed: {}", mongoTemplate.getCollectionName(type), e.getMessage());
+            }
+        }
+    }
+
+    private long backfill(Class<?> type) throws InterruptedException {
+        long total = 0;
+        while (true) {
+            Query unowned = new Query(Criteria.where("userId").is(null)).limit(batchSize);
+            unowned.fields().include("_id");
+            List<Object> ids = mongoTemplate.find(unowned, Document.class, mongoTemplate.getCollectionName(type))
+                    .stream().map(doc -> doc.get("_id")).toList();
+            if (ids.isEmpty()) {
+                return total;
+            }
+
+            total += mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(ids).and("userId").is(null)),
+                    new Update().set("userId", legacyOwner),
+                    type).getModifiedCount();
+            Thread.sleep(batchPauseMs);
+        }
+    }
+}
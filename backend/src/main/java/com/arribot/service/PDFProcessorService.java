@@ -1,42 +1,227 @@
 package com.arribot.service;
 
+import com.arribot.util.TextNormalizer;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * PDF validation and text extraction.
+ *
+ * Every open document keeps at most pdf.extract.max.main.memory.bytes of its data on the
+ * heap and spills the rest to a scratch file capped at pdf.extract.max.scratch.bytes, and
+ * a semaphore keeps no more than pdf.extract.threads documents open at once, counting the
+ * page-count load and tasks the caller runs itself when the queue is full, so extraction
+ * heap is bounded whatever the PDF. Documents longer than
+ * pdf.extract.pages.per.task are split into page ranges stripped in parallel, each task
+ * loading its own PDDocument since one is not thread-safe. pdf.extract.max.pages and
+ * pdf.extract.timeout.ms bound the work; on timeout the remaining tasks are cancelled
+ * and stop at their next page.
+ */
 @Service
 public class PDFProcessorService {
 
+    private static final byte[] PDF_SIGNATURE = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore openDocuments;
+    private final long maxMainMemoryBytes;
+    private final long maxScratchBytes;
+    private final int maxPages;
+    private final int pagesPerTask;
+    private final long timeoutMs;
+
+    public PDFProcessorService(@Value("${pdf.extract.threads:0}") int threads,
+                               @Value("${pdf.extract.queue.capacity:256}") int queueCapacity,
+                               @Value("${pdf.extract.max.main.memory.bytes:8388608}") long maxMainMemoryBytes,
+                               @Value("${pdf.extract.max.scratch.bytes:268435456}") long maxScratchBytes,
+                               @Value("${pdf.extract.max.pages:50}") int maxPages,
+                               @Value("${pdf.extract.pages.per.task:8}") int pagesPerTask,
+                               @Value("${pdf.extract.timeout.ms:30000}") long timeoutMs) {
+        // 0 means one thread per core
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "pdf-extract-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue pushes back on the submitting ingestion worker
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.openDocuments = new Semaphore(poolSize);
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.maxScratchBytes = maxScratchBytes;
+        this.maxPages = maxPages;
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Extract text content from a stored PDF file. PDFBox reads it through a
+     * RandomAccessRead over the file, so the document is never held as one byte array.
+     *
+     * @throws IllegalArgumentException if the PDF has more than pdf.extract.max.pages pages
+     * @throws IOException              if the PDF cannot be parsed or extraction runs past pdf.extract.timeout.ms
+     */
+    public String extractTextFromPDF(File file) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        int pages;
+        acquireDocument(deadline);
+        try (PDDocument document = load(file)) {
+            pages = document.getNumberOfPages();
+            if (pages > maxPages) {
+                throw new IllegalArgumentException(
+                        "PDF has " + pages + " pages; at most " + maxPages + " are supported");
+            }
+            if (pages <= pagesPerTask) {
+                // One range: strip the document already open instead of loading it again
+                return cleanText(strip(document, 1, pages, deadline));
+            }
+        } finally {
+            openDocuments.release();
+        }
+
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int first = 1; first <= pages; first += pagesPerTask) {
+            int start = first;
+            int end = Math.min(pages, first + pagesPerTask - 1);
+            tasks.add(() -> {
+                acquireDocument(deadline);
+                try (PDDocument document = load(file)) {
+                    return strip(document, start, end, deadline);
+                } finally {
+                    openDocuments.release();
+                }
+            });
+        }
+        return cleanText(runAll(tasks, deadline));
+    }
+
     /**
-     * Extract text content from a PDF file
+     * Run the page-range tasks and join their text in page order. Tasks still unfinished at
+     * the deadline are cancelled (interrupted), which the stripper notices at its next page.
      */
-    public String extractTextFromPDF(MultipartFile file) throws IOException {
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
-            return cleanText(text);
+    private CharSequence runAll(List<Callable<String>> tasks, long deadline) throws IOException {
+        List<Future<String>> futures;
+        try {
+            futures = executor.invokeAll(tasks, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF text extraction interrupted");
         }
+
+        StringBuilder text = new StringBuilder();
+        for (Future<String> future : futures) {
+            try {
+                text.append(future.get()).append(' ');
+            } catch (CancellationException e) {
+                throw new IOException("PDF text extraction took longer than " + timeoutMs + " ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("PDF text extraction interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException("PDF text extraction failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return text;
     }
 
     /**
-     * Clean and normalize extracted text
+     * Wait, until the deadline at most, for room to open one more document.
      */
-    private String cleanText(String text) {
-        if (text == null) {
-            return "";
+    private void acquireDocument(long deadline) throws IOException {
+        try {
+            if (!openDocuments.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new IOException("PDF text extraction took longer than " + timeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF text extraction interrupted");
         }
-        
-        // Remove excessive whitespace
-        text = text.replaceAll("\\s+", " ");
-        
-        // Remove special characters that might cause issues
-        text = text.replaceAll("[^\\p{L}\\p{N}\\p{P}\\s]", "");
-        
-        // Trim
-        return text.trim();
+    }
+
+    private PDDocument load(File file) throws IOException {
+        return PDDocument.load(file, MemoryUsageSetting.setupMixed(maxMainMemoryBytes, maxScratchBytes));
+    }
+
+    private String strip(PDDocument document, int startPage, int endPage, long deadline) throws IOException {
+        PDFTextStripper stripper = new BudgetedTextStripper(deadline);
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        return stripper.getText(document);
+    }
+
+    /**
+     * Stops between pages once the deadline has passed or the thread was interrupted.
+     */
+    private class BudgetedTextStripper extends PDFTextStripper {
+
+        private final long deadline;
+
+        BudgetedTextStripper(long deadline) throws IOException {
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("PDF text extraction cancelled");
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("PDF text extraction took longer than " + timeoutMs + " ms");
+            }
+            super.startPage(page);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Clean and normalize extracted text: collapse whitespace, drop anything that is not
+     * a letter, number or punctuation, trim. One pass; see {@link TextNormalizer}.
+     */
+    private String cleanText(CharSequence text) {
+        return TextNormalizer.clean(text);
+    }
+
+    /**
+     * Whether the first bytes of a file are the "%PDF-" signature
+     */
+    public static boolean hasPdfHeader(byte[] head, int length) {
+        if (length < PDF_SIGNATURE.length) return false;
+        for (int i = 0; i < PDF_SIGNATURE.length; i++) {
+            if (head[i] != PDF_SIGNATURE[i]) return false;
+        }
+        return true;
     }
 
     /**
@@ -1,15 +1,22 @@
 package com.arribot.service;
 
 import com.arribot.model.AIFeature;
+import com.arribot.model.CursorPage;
 import com.arribot.model.GroqResponse;
 import com.arribot.model.Quiz;
+import com.arribot.repository.KeysetPager;
+import com.arribot.repository.QuizReactiveRepository;
 import com.arribot.repository.QuizRepository;
+import com.arribot.service.gateway.AIGateway;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -21,23 +28,28 @@ public class QuizService {
     private static final Logger logger = LoggerFactory.getLogger(QuizService.class);
     private final GroqService groqService;
     private final QuizRepository quizRepository;
+    private final QuizReactiveRepository quizReactiveRepository;
+    private final KeysetPager keysetPager;
     private final Gson gson;
-    private final AILimitsService aiLimitsService;
+    private final AIGateway aiGateway;
 
     public QuizService(GroqService groqService,
                        QuizRepository quizRepository,
-                       AILimitsService aiLimitsService) {
+                       QuizReactiveRepository quizReactiveRepository,
+                       KeysetPager keysetPager,
+                       AIGateway aiGateway) {
         this.groqService = groqService;
         this.quizRepository = quizRepository;
+        this.quizReactiveRepository = quizReactiveRepository;
+        this.keysetPager = keysetPager;
         this.gson = new Gson();
-        this.aiLimitsService = aiLimitsService;
+        this.aiGateway = aiGateway;
     }
 
     public Quiz generateQuiz(String topic, int questionCount, String userId) throws IOException {
-        aiLimitsService.checkAndIncrementUsage(userId, AIFeature.QUIZ);
 
-        GroqResponse groqResponse = groqService.generateQuiz(topic, questionCount);
-        aiLimitsService.recordTokenUsage(userId, groqResponse);
+        GroqResponse groqResponse = aiGateway.call(userId, AIFeature.QUIZ,
+                () -> groqService.generateQuiz(topic, questionCount));
         logger.info("Quiz generated using Groq");
 
         List<Quiz.QuizQuestion> questions = new ArrayList<>();
@@ -62,15 +74,26 @@ public class QuizService {
             throw new IOException("Failed to parse quiz: " + e.getMessage());
         }
 
-        return quizRepository.save(new Quiz(topic, questions));
+        return quizRepository.save(new Quiz(userId, topic, questions));
     }
 
-    public List<Quiz> getQuizzesByTopic(String topic) {
-        return quizRepository.findByTopicOrderByCreatedAtDesc(topic);
+    public List<Quiz> getQuizzesByTopic(String userId, String topic) {
+        return quizRepository.findByUserIdAndTopicOrderByCreatedAtDesc(userId, topic);
     }
 
-    public List<Quiz> getAllQuizzes() {
-        return quizRepository.findAll();
+    /**
+     * The user's quizzes newest first, one page at a time.
+     */
+    public CursorPage<Quiz> getQuizzes(String userId, String cursor, Integer limit) {
+        return keysetPager.page(Quiz.class, Criteria.where("userId").is(userId),
+                "createdAt", Sort.Direction.DESC, cursor, limit);
+    }
+
+    /**
+     * All of the user's quizzes newest first, emitted as the Mongo cursor is read.
+     */
+    public Flux<Quiz> streamQuizzes(String userId) {
+        return quizReactiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId);
     }
 
     public Quiz getQuizById(String id) {
@@ -1,75 +1,131 @@
 package com.arribot.service;
 
+import com.arribot.model.CursorPage;
 import com.arribot.model.Resume;
+import com.arribot.model.ResumeSummary;
 import com.arribot.model.User;
+import com.arribot.repository.KeysetPager;
+import com.arribot.repository.ResumeReactiveRepository;
 import com.arribot.repository.ResumeRepository;
+import com.arribot.service.storage.ContentStore;
+import com.arribot.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class ResumeService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ResumeService.class);
+
     @Autowired
     private ResumeRepository resumeRepository;
 
     @Autowired
     private PDFProcessorService pdfProcessorService;
 
-    @Value("${file.upload.dir:./uploads/resumes}")
-    private String uploadDir;
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private ResumeReactiveRepository resumeReactiveRepository;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     /**
-     * Upload and save a resume
+     * Validate an upload and stream it into the content store as a reference of {@code resumeId}.
+     * Identical bytes already stored are not written again.
+     *
+     * @throws IllegalArgumentException if the file is not an acceptable PDF
      */
-    public Resume uploadResume(MultipartFile file, User user) throws IOException {
-        // Validate PDF
+    public ContentStore.Stored storeUpload(MultipartFile file, String resumeId) throws IOException {
         if (!pdfProcessorService.isValidPDF(file)) {
             throw new IllegalArgumentException("Invalid PDF file");
         }
-
-        // Create upload directory if it doesn't exist
-        File directory = new File(uploadDir);
-        if (!directory.exists()) {
-            directory.mkdirs();
+        try (InputStream in = file.getInputStream()) {
+            return contentStore.store(in, resumeId);
         }
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        String filePath = uploadDir + File.separator + uniqueFilename;
-
-        // Save file to disk
-        Path targetPath = Paths.get(filePath);
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Text of a stored file, parsed by PDFBox only the first time those bytes are seen.
+     */
+    public String extractText(String fileHash, String filePath) throws IOException {
+        if (fileHash != null) {
+            Optional<String> cached = contentStore.cachedText(fileHash);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        String text = extractText(filePath);
+        if (fileHash != null) {
+            contentStore.cacheText(fileHash, text);
+        }
+        return text;
+    }
 
-        // Extract text from PDF
-        String extractedText = pdfProcessorService.extractTextFromPDF(file);
+    private String extractText(String filePath) throws IOException {
+        return pdfProcessorService.extractTextFromPDF(new File(filePath));
+    }
 
-        // Create and save resume entity
-        Resume resume = new Resume(user.getId(), originalFilename, filePath);
+    /**
+     * Save an ingested upload as the resume with the given id.
+     * Saving under a fixed id makes a retry overwrite rather than duplicate.
+     */
+    public Resume saveIngested(String resumeId, String userId, String fileName, String filePath, String fileHash,
+                               String extractedText) {
+        Resume resume = new Resume(userId, fileName, filePath);
+        resume.setId(resumeId);
+        resume.setFileHash(fileHash);
         resume.setExtractedText(extractedText);
+        resume.setTextHash(extractedText != null ? ContentHash.sha256(extractedText) : null);
 
         return resumeRepository.save(resume);
     }
 
+    /**
+     * Get a resume by ID without an owner check, for background jobs that carry the owner themselves
+     */
+    public Optional<Resume> findById(String id) {
+        return resumeRepository.findById(id);
+    }
+
     /**
      * Get all resumes for a user
      */
-    public List<Resume> getUserResumes(User user) {
-        return resumeRepository.findByUserIdOrderByUploadedAtDesc(user.getId());
+    public CursorPage<ResumeSummary> getUserResumes(User user, String cursor, Integer limit) {
+        return keysetPager.page(Resume.class, ResumeSummary.class,
+                fields -> fields.include("fileName", "uploadedAt"),
+                Criteria.where("userId").is(user.getId()), "uploadedAt", Sort.Direction.DESC, cursor, limit);
+    }
+
+    /**
+     * All of a user's resume summaries newest first, emitted as the Mongo cursor is read
+     */
+    public Flux<ResumeSummary> streamUserResumes(User user) {
+        return resumeReactiveRepository.findByUserIdOrderByUploadedAtDescIdDesc(user.getId());
     }
 
     /**
@@ -91,12 +147,16 @@ public class ResumeService {
 
         Resume resume = resumeOpt.get();
 
-        // Delete file from disk
-        try {
-            Path filePath = Paths.get(resume.getFilePath());
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            System.err.println("Failed to delete file: " + e.getMessage());
+        // Stored files are shared between identical uploads; only legacy uploads are deleted outright
+        if (resume.getFileHash() != null) {
+            contentStore.release(resume.getFileHash(), resume.getId());
+        } else {
+            try {
+                Path filePath = Paths.get(resume.getFilePath());
+                Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                System.err.println("Failed to delete file: " + e.getMessage());
+            }
         }
 
         // Delete from database
@@ -104,10 +164,45 @@ public class ResumeService {
         return true;
     }
 
+    /**
+     * Moves uploads stored before the content store existed (flat directory, random names)
+     * into it, so identical ones share a file, and seeds the text cache from their resumes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyUploads() {
+        Query legacy = new Query(Criteria.where("fileHash").exists(false).and("filePath").ne(null));
+        int migrated = 0;
+        for (Resume resume : mongoTemplate.find(legacy, Resume.class)) {
+            Path original = Paths.get(resume.getFilePath());
+            if (!Files.isRegularFile(original)) continue;
+            try {
+                ContentStore.Stored stored;
+                try (InputStream in = Files.newInputStream(original)) {
+                    stored = contentStore.store(in, resume.getId());
+                }
+                if (contentStore.cachedText(stored.hash()).isEmpty() && resume.getExtractedText() != null) {
+                    contentStore.cacheText(stored.hash(), resume.getExtractedText());
+                }
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(resume.getId())),
+                        new Update().set("fileHash", stored.hash()).set("filePath", stored.path().toString()),
+                        Resume.class);
+                Files.deleteIfExists(original);
+                migrated++;
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Could not move upload {} of resume {} into the content store: {}",
+                        original, resume.getId(), e.getMessage());
+            }
+        }
+        if (migrated > 0) {
+            logger.info("Moved {} legacy uploads into the content store", migrated);
+        }
+    }
+
     /**
      * Get resume count for a user
      */
     public long getResumeCount(User user) {
         return resumeRepository.countByUserId(user.getId());
     }
+
 }
@@ -0,0 +1,209 @@
+package com.arribot.service;
+
+import com.arribot.model.Flashcard;
+import com.arribot.model.FlashcardDeck;
+import com.arribot.model.Quiz;
+import com.arribot.model.SearchHit;
+import com.arribot.model.Summary;
+import com.arribot.util.SearchHighlighter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Ranked full-text search over one user's generated content.
+ *
+ * Each searchable collection has a text index prefixed with userId (user_text_idx),
+ * so a query only walks the postings of that user's documents. Results from several
+ * collections are merged by text score. Paging is by page number up to
+ * search.max.results deep, since text score order has no stable keyset.
+ */
+@Service
+public class SearchService {
+
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final List<Searchable<?>> searchables;
+
+    @Value("${pagination.default.size:20}")
+    private int defaultSize;
+
+    @Value("${pagination.max.size:100}")
+    private int maxSize;
+
+    @Value("${search.max.results:500}")
+    private int maxResults;
+
+    public SearchService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.searchables = List.of(
+                new Searchable<>("flashcard", Flashcard.class, Flashcard::getId, Flashcard::getTopic,
+                        Flashcard::getCreatedAt, card -> List.of(
+                                field("question", card.getQuestion()),
+                                field("answer", card.getAnswer()),
+                                field("topic", card.getTopic()))),
+                new Searchable<>("deck", FlashcardDeck.class, FlashcardDeck::getId, FlashcardDeck::getTopic,
+                        FlashcardDeck::getCreatedAt, SearchService::deckFields),
+                new Searchable<>("quiz", Quiz.class, Quiz::getId, Quiz::getTopic,
+                        Quiz::getCreatedAt, SearchService::quizFields),
+                new Searchable<>("summary", Summary.class, Summary::getId, SearchService::summaryTitle,
+                        Summary::getCreatedAt, summary -> List.of(field("summarizedText", summary.getSummarizedText()))));
+    }
+
+    /**
+     * @param types flashcard, deck, quiz, summary; null or empty for all
+     * @param page  zero-based
+     * @throws IllegalArgumentException for an empty or overlong query, unknown type, or page past search.max.results
+     */
+    public Page search(String userId, String queryText, List<String> types, Integer page, Integer size) {
+        if (queryText == null || queryText.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (queryText.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        int pageSize = size == null || size < 1 ? defaultSize : Math.min(size, maxSize);
+        int pageNumber = page == null || page < 0 ? 0 : page;
+        if ((pageNumber + 1) * pageSize > maxResults) {
+            throw new IllegalArgumentException("Search results are limited to the first " + maxResults);
+        }
+
+        List<Searchable<?>> targets = targets(types);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        // A single collection can skip in the database; a merge needs every collection's top results
+        boolean single = targets.size() == 1;
+        int skip = single ? pageNumber * pageSize : 0;
+        int fetch = single ? pageSize + 1 : (pageNumber + 1) * pageSize + 1;
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Searchable<?> target : targets) {
+            candidates.addAll(find(target, userId, queryText, skip, fetch));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed()
+                .thenComparing(Candidate::createdAt, Comparator.nullsLast(Comparator.reverseOrder())));
+
+        int from = single ? 0 : Math.min(pageNumber * pageSize, candidates.size());
+        int to = Math.min(from + pageSize, candidates.size());
+        boolean hasMore = candidates.size() > to;
+
+        // Only the page is mapped to entities and highlighted, not every collection's top results
+        Set<String> terms = SearchHighlighter.terms(queryText);
+        List<SearchHit> items = new ArrayList<>(to - from);
+        for (Candidate candidate : candidates.subList(from, to)) {
+            items.add(hit(candidate.target(), candidate, terms));
+        }
+
+        sample.stop(meterRegistry.timer("search.latency", "types", single ? targets.get(0).type() : "all"));
+        return new Page(items, pageNumber, pageSize, hasMore);
+    }
+
+    private List<Candidate> find(Searchable<?> target, String userId, String queryText, int skip, int limit) {
+        TextQuery query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(queryText))
+                .sortByScore()
+                .includeScore();
+        query.addCriteria(Criteria.where("userId").is(userId));
+        query.skip(skip).limit(limit);
+
+        List<Document> docs = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(target.entity()));
+        List<Candidate> candidates = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            double score = doc.get("score") instanceof Number n ? n.doubleValue() : 0.0;
+            Date createdAt = doc.get("createdAt") instanceof Date d ? d : null;
+            candidates.add(new Candidate(target, doc, score, createdAt));
+        }
+        return candidates;
+    }
+
+    private <T> SearchHit hit(Searchable<T> target, Candidate candidate, Set<String> terms) {
+        T entity = mongoTemplate.getConverter().read(target.entity(), candidate.doc());
+        return new SearchHit(target.type(), target.id().apply(entity), target.title().apply(entity), candidate.score(),
+                target.createdAt().apply(entity), SearchHighlighter.highlights(target.fields().apply(entity), terms));
+    }
+
+    private List<Searchable<?>> targets(List<String> types) {
+        if (types == null || types.isEmpty() || types.contains("all")) {
+            return searchables;
+        }
+        List<Searchable<?>> targets = new ArrayList<>();
+        for (String type : types) {
+            Searchable<?> match = searchables.stream()
+                    .filter(s -> s.type().equalsIgnoreCase(type.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown search type: " + type));
+            if (!targets.contains(match)) targets.add(match);
+        }
+        return targets;
+    }
+
+    private static List<Map.Entry<String, String>> deckFields(FlashcardDeck deck) {
+        List<Map.Entry<String, String>> fields = new ArrayList<>();
+        if (deck.getCards() != null) {
+            for (int i = 0; i < deck.getCards().size(); i++) {
+                fields.add(field("cards." + i + ".question", deck.getCards().get(i).getQuestion()));
+                fields.add(field("cards." + i + ".answer", deck.getCards().get(i).getAnswer()));
+            }
+        }
+        fields.add(field("topic", deck.getTopic()));
+        return fields;
+    }
+
+    private static List<Map.Entry<String, String>> quizFields(Quiz quiz) {
+        List<Map.Entry<String, String>> fields = new ArrayList<>();
+        if (quiz.getQuestions() != null) {
+            for (int i = 0; i < quiz.getQuestions().size(); i++) {
+                Quiz.QuizQuestion question = quiz.getQuestions().get(i);
+                fields.add(field("questions." + i + ".question", question.getQuestion()));
+                if (question.getOptions() != null) {
+                    fields.add(field("questions." + i + ".options", String.join(" · ", question.getOptions())));
+                }
+                fields.add(field("questions." + i + ".explanation", question.getExplanation()));
+            }
+        }
+        fields.add(field("topic", quiz.getTopic()));
+        return fields;
+    }
+
+    private static String summaryTitle(Summary summary) {
+        String text = summary.getSummarizedText();
+        if (text == null) return "";
+        return text.length() <= 80 ? text : text.substring(0, 80).trim() + "…";
+    }
+
+    private static Map.Entry<String, String> field(String name, String value) {
+        return new AbstractMap.SimpleImmutableEntry<>(name, value);
+    }
+
+    private record Searchable<T>(String type,
+                                 Class<T> entity,
+                                 Function<T, String> id,
+                                 Function<T, String> title,
+                                 Function<T, LocalDateTime> createdAt,
+                                 Function<T, List<Map.Entry<String, String>>> fields) {}
+
+    /**
+     * A raw result, ranked before it is read into an entity.
+     */
+    private record Candidate(Searchable<?> target, Document doc, double score, Date createdAt) {}
+
+    public record Page(List<SearchHit> items, int page, int size, boolean hasMore) {}
+}
@@ -2,19 +2,44 @@ package com.arribot.service;
 
 import com.arribot.model.Resume;
 import com.arribot.model.SkillAnalysis;
+import com.arribot.repository.ResumeRepository;
 import com.arribot.repository.SkillAnalysisRepository;
+import com.arribot.util.ContentHash;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class SkillAnalysisService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SkillAnalysisService.class);
+
     @Autowired
     private SkillAnalysisRepository skillAnalysisRepository;
 
+    @Autowired
+    private ResumeRepository resumeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private GroqResumeAnalyzer groqResumeAnalyzer;
 
@@ -22,28 +47,43 @@ public class SkillAnalysisService {
      * Analyze a resume and generate skill analysis
      */
     public SkillAnalysis analyzeResume(Resume resume, String targetRole) throws IOException {
-        // Check if analysis already exists
-        Optional<SkillAnalysis> existingAnalysis = 
-                skillAnalysisRepository.findTopByResumeOrderByAnalyzedAtDesc(resume);
-
-        // If analysis exists for same target role, return it (caching)
-        if (existingAnalysis.isPresent() && 
-            existingAnalysis.get().getTargetRole().equals(targetRole)) {
-            return existingAnalysis.get();
-        }
-
         // Get resume text
         String resumeText = resume.getExtractedText();
         if (resumeText == null || resumeText.trim().isEmpty()) {
             throw new IllegalArgumentException("Resume text is empty");
         }
 
+        String textHash = textHash(resume);
+        String normalizedRole = normalizeRole(targetRole);
+
+        // Reuse any earlier analysis of the same text for the same role, from this upload or another
+        Optional<SkillAnalysis> cached =
+                skillAnalysisRepository.findTopByResumeTextHashAndNormalizedRoleOrderByAnalyzedAtDesc(textHash, normalizedRole);
+        if (cached.isPresent()) {
+            SkillAnalysis existing = cached.get();
+            if (resume.getId().equals(existing.getResumeId())) {
+                // Re-requested role becomes the resume's latest analysis again
+                LocalDateTime now = LocalDateTime.now();
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(existing.getId())),
+                        new Update().set("analyzedAt", now), SkillAnalysis.class);
+                existing.setAnalyzedAt(now);
+                return existing;
+            }
+            // Identical re-upload: copy the result onto this resume so its latest analysis is found by id
+            logger.info("Reusing skill analysis {} for resume {} (role '{}')", existing.getId(), resume.getId(), normalizedRole);
+            existing.setId(null);
+            existing.setResumeId(resume.getId());
+            existing.setUserId(resume.getUserId());
+            existing.setAnalyzedAt(LocalDateTime.now());
+            return skillAnalysisRepository.save(existing);
+        }
+
         // Call Groq AI for analysis
         GroqResumeAnalyzer.SkillAnalysisResult aiResult = 
-                groqResumeAnalyzer.analyzeResume(resumeText, targetRole);
+                groqResumeAnalyzer.analyzeResume(resumeText, targetRole, resume.getUserId());
 
         // Create and save skill analysis
-        SkillAnalysis analysis = new SkillAnalysis(resume, targetRole);
+        SkillAnalysis analysis = new SkillAnalysis(resume, textHash, targetRole, normalizedRole);
         analysis.setDetectedSkills(aiResult.getDetectedSkills());
         analysis.setMissingSkills(aiResult.getMissingSkills());
         analysis.setRecommendedSkills(aiResult.getRecommendedSkills());
@@ -72,7 +112,7 @@ public class SkillAnalysisService {
      * Get the latest analysis for a resume
      */
     public Optional<SkillAnalysis> getLatestAnalysis(Resume resume) {
-        return skillAnalysisRepository.findTopByResumeOrderByAnalyzedAtDesc(resume);
+        return skillAnalysisRepository.findTopByResumeIdOrderByAnalyzedAtDesc(resume.getId());
     }
 
     /**
@@ -81,4 +121,71 @@ public class SkillAnalysisService {
     public Optional<SkillAnalysis> getAnalysisById(String id) {
         return skillAnalysisRepository.findById(id);
     }
+
+    /**
+     * Lower-cased, trimmed, single-spaced role so "Software  Engineer " and "software engineer" share a cache entry.
+     */
+    static String normalizeRole(String targetRole) {
+        return targetRole == null ? "" : targetRole.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Hash stored at upload; resumes uploaded before hashing existed get theirs computed and saved once.
+     */
+    private String textHash(Resume resume) {
+        if (resume.getTextHash() == null) {
+            resume.setTextHash(ContentHash.sha256(resume.getExtractedText()));
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(resume.getId())),
+                    Update.update("textHash", resume.getTextHash()), Resume.class);
+        }
+        return resume.getTextHash();
+    }
+
+    /**
+     * One-off conversion of analyses saved with a DBRef to the resume: copy its id into resumeId and
+     * fill in the text hash and normalized role so they take part in the cache.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyAnalyses() {
+        Query legacy = new Query(Criteria.where("resume").exists(true).and("resumeId").exists(false));
+        legacy.fields().include("resume", "targetRole");
+        String collection = mongoTemplate.getCollectionName(SkillAnalysis.class);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SkillAnalysis.class);
+        int pending = 0;
+        int migrated = 0;
+        try (Stream<Document> docs = mongoTemplate.stream(legacy, Document.class, collection)) {
+            for (Iterator<Document> it = docs.iterator(); it.hasNext(); ) {
+                Document doc = it.next();
+                if (!(doc.get("resume") instanceof DBRef ref)) continue;
+                String resumeId = ref.getId().toString();
+
+                Update update = new Update()
+                        .set("resumeId", resumeId)
+                        .set("normalizedRole", normalizeRole(doc.getString("targetRole")))
+                        .unset("resume");
+                resumeRepository.findById(resumeId).ifPresent(resume -> {
+                    update.set("userId", resume.getUserId());
+                    if (resume.getExtractedText() != null) {
+                        update.set("resumeTextHash", textHash(resume));
+                    }
+                });
+                bulk.updateOne(Query.query(Criteria.where("_id").is(doc.get("_id"))), update);
+
+                if (++pending == 500) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SkillAnalysis.class);
+                    migrated += pending;
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+            migrated += pending;
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} skill analyses from DBRef to resumeId", migrated);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.arribot.service;
+
+import com.arribot.util.AhoCorasick;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the skills a resume mentions by matching it against a dictionary, without an AI call.
+ *
+ * Each dictionary line is a skill's display name, optionally followed by "|" and comma
+ * separated synonyms ("JavaScript | JS, ECMAScript"); blank lines and lines starting with
+ * "#" are ignored. Names and synonyms all go into one {@link AhoCorasick} automaton, so a
+ * resume is scanned once whatever the size of the dictionary.
+ */
+@Service
+public class SkillExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkillExtractor.class);
+
+    private final AhoCorasick matcher;
+    // Display name of the skill each pattern id stands for
+    private final String[] skillOfPattern;
+
+    public SkillExtractor(@Value("${skills.dictionary:classpath:skills/skills.txt}") Resource dictionary)
+            throws IOException {
+        List<String> patterns = new ArrayList<>();
+        List<String> skills = new ArrayList<>();
+        int skillCount = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split("\\|", 2);
+                String name = parts[0].strip();
+                patterns.add(name);
+                skills.add(name);
+                if (parts.length > 1) {
+                    for (String synonym : parts[1].split(",")) {
+                        if (!synonym.isBlank()) {
+                            patterns.add(synonym.strip());
+                            skills.add(name);
+                        }
+                    }
+                }
+                skillCount++;
+            }
+        }
+        matcher = new AhoCorasick(patterns);
+        skillOfPattern = skills.toArray(new String[0]);
+        logger.info("Loaded {} skills ({} patterns, {} automaton states) from {}",
+                skillCount, patterns.size(), matcher.stateCount(), dictionary.getDescription());
+    }
+
+    /**
+     * Display names of the dictionary skills found in {@code text}, each once, in order of first mention
+     */
+    public List<String> extract(CharSequence text) {
+        if (text == null) {
+            return new ArrayList<>();
+        }
+        Set<String> found = new LinkedHashSet<>();
+        matcher.scan(text, (patternId, start, end) -> found.add(skillOfPattern[patternId]));
+        return new ArrayList<>(found);
+    }
+}
@@ -1,43 +1,310 @@
 package com.arribot.service;
 
 import com.arribot.model.AIFeature;
+import com.arribot.model.CompressedText;
+import com.arribot.model.CursorPage;
 import com.arribot.model.GroqResponse;
 import com.arribot.model.Summary;
+import com.arribot.model.SummarySource;
+import com.arribot.repository.KeysetPager;
+import com.arribot.repository.SummaryReactiveRepository;
 import com.arribot.repository.SummaryRepository;
+import com.arribot.service.gateway.AIGateway;
+import com.arribot.util.ContentHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class SummaryService {
 
     private static final Logger logger = LoggerFactory.getLogger(SummaryService.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MIGRATION_BATCH = 500;
+    private static final String SOURCE_INDEX = "user_source_idx";
+
     private final GroqService groqService;
     private final SummaryRepository summaryRepository;
-    private final AILimitsService aiLimitsService;
+    private final SummaryReactiveRepository summaryReactiveRepository;
+    private final MongoTemplate mongoTemplate;
+    private final KeysetPager keysetPager;
+    private final AIGateway aiGateway;
+    private final Counter dedupHits;
+    private final Counter dedupMisses;
 
     public SummaryService(GroqService groqService,
                           SummaryRepository summaryRepository,
-                          AILimitsService aiLimitsService) {
+                          SummaryReactiveRepository summaryReactiveRepository,
+                          MongoTemplate mongoTemplate,
+                          KeysetPager keysetPager,
+                          AIGateway aiGateway,
+                          MeterRegistry meterRegistry) {
         this.groqService = groqService;
         this.summaryRepository = summaryRepository;
-        this.aiLimitsService = aiLimitsService;
+        this.summaryReactiveRepository = summaryReactiveRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.keysetPager = keysetPager;
+        this.aiGateway = aiGateway;
+        this.dedupHits = meterRegistry.counter("summary.dedup", "result", "hit");
+        this.dedupMisses = meterRegistry.counter("summary.dedup", "result", "miss");
     }
 
+    /**
+     * Texts that normalize to the same content are summarized once; later requests,
+     * from any user, are answered from summary_sources without calling the model.
+     */
     public Summary summarizeText(String text, String userId) throws IOException {
-        aiLimitsService.checkAndIncrementUsage(userId, AIFeature.SUMMARY);
+        String normalized = normalize(text);
+        String hash = ContentHash.sha256(normalized);
+
+        SummarySource source = recordHit(hash);
+        if (source != null) {
+            dedupHits.increment();
+            logger.info("Summary served from stored source {}", hash);
+        } else {
+            dedupMisses.increment();
+            GroqResponse groqResponse = aiGateway.call(userId, AIFeature.SUMMARY,
+                    () -> groqService.summarize(text));
+            logger.info("Summary generated using Groq");
+            source = storeSource(hash, text, groqResponse.getText());
+        }
+
+        String summarizedText = source.getSummarizedText();
+        Summary summary = summaryRepository.findFirstByUserIdAndSourceHash(userId, hash)
+                .orElseGet(() -> saveSummary(new Summary(userId, hash, wordCount(normalized), summarizedText)));
+        summary.setOriginalText(text);
+        return summary;
+    }
+
+    /**
+     * Save a new summary; when a concurrent request for the same text saved first, return that one.
+     */
+    private Summary saveSummary(Summary summary) {
+        try {
+            return summaryRepository.save(summary);
+        } catch (DuplicateKeyException e) {
+            return summaryRepository.findFirstByUserIdAndSourceHash(summary.getUserId(), summary.getSourceHash())
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Bump the hit count of an existing source; null if there is none.
+     */
+    private SummarySource recordHit(String hash) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("hash").is(hash)),
+                new Update().inc("hitCount", 1).set("lastUsedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                SummarySource.class);
+    }
+
+    /**
+     * Insert-if-absent, so when two requests race on the same new text the first
+     * stored summary wins and both return it.
+     */
+    private SummarySource storeSource(String hash, String text, String summarizedText) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("hash").is(hash)),
+                new Update()
+                        .setOnInsert("text", CompressedText.of(text))
+                        .setOnInsert("summarizedText", summarizedText)
+                        .setOnInsert("hitCount", 0L)
+                        .setOnInsert("createdAt", now)
+                        .set("lastUsedAt", now),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                SummarySource.class);
+    }
+
+    /**
+     * Unicode compatibility form, whitespace runs collapsed to one space, trimmed, so
+     * copies that differ only in line wrapping or spacing share a hash.
+     */
+    static String normalize(String text) {
+        String composed = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(composed).replaceAll(" ").trim();
+    }
 
-        GroqResponse groqResponse = groqService.summarize(text);
-        aiLimitsService.recordTokenUsage(userId, groqResponse);
-        logger.info("Summary generated using Groq");
+    private static int wordCount(String normalized) {
+        if (normalized.isEmpty()) return 0;
+        int words = 1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == ' ') words++;
+        }
+        return words;
+    }
+
+    /**
+     * Lookups answered from a stored source versus those that needed the model, since startup.
+     */
+    public Map<String, Object> getDedupStats() {
+        double hits = dedupHits.count();
+        double misses = dedupMisses.count();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", (long) hits);
+        stats.put("misses", (long) misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : hits / (hits + misses));
+        return stats;
+    }
 
-        return summaryRepository.save(new Summary(text, groqResponse.getText()));
+    /**
+     * The user's summaries newest first, one page at a time.
+     */
+    public CursorPage<Summary> getSummaries(String userId, String cursor, Integer limit) {
+        return keysetPager.page(Summary.class, Criteria.where("userId").is(userId),
+                "createdAt", Sort.Direction.DESC, cursor, limit);
     }
 
-    public List<Summary> getAllSummaries() {
-        return summaryRepository.findAll();
+    /**
+     * All of the user's summaries newest first, emitted as the Mongo cursor is read.
+     */
+    public Flux<Summary> streamSummaries(String userId) {
+        return summaryReactiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId);
+    }
+
+    /**
+     * Moves the originalText still embedded in older summaries into summary_sources
+     * and replaces it with the hash reference, then makes (userId, sourceHash) unique.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateEmbeddedSources() {
+        Query legacy = new Query(Criteria.where("originalText").exists(true));
+        legacy.fields().include("originalText", "summarizedText", "createdAt");
+        String collection = mongoTemplate.getCollectionName(Summary.class);
+
+        BulkOperations sources = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SummarySource.class);
+        BulkOperations summaries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Summary.class);
+        int pending = 0;
+        int migrated = 0;
+        try (Stream<Document> docs = mongoTemplate.stream(legacy, Document.class, collection)) {
+            for (Iterator<Document> it = docs.iterator(); it.hasNext(); ) {
+                Document doc = it.next();
+                // Stored plain or deflated depending on size
+                String text = CompressedText.text(mongoTemplate.getConverter().getConversionService()
+                        .convert(doc.get("originalText"), CompressedText.class));
+                if (text == null) continue;
+                String normalized = normalize(text);
+                String hash = ContentHash.sha256(normalized);
+                Date createdAt = doc.getDate("createdAt");
+
+                sources.upsert(Query.query(Criteria.where("hash").is(hash)), new Update()
+                        .setOnInsert("text", CompressedText.of(text))
+                        .setOnInsert("summarizedText", doc.getString("summarizedText"))
+                        .setOnInsert("hitCount", 0L)
+                        .setOnInsert("createdAt", createdAt)
+                        .max("lastUsedAt", createdAt));
+                summaries.updateOne(Query.query(Criteria.where("_id").is(doc.get("_id"))), new Update()
+                        .set("sourceHash", hash)
+                        .set("originalWordCount", wordCount(normalized))
+                        .unset("originalText"));
+
+                if (++pending == MIGRATION_BATCH) {
+                    // Sources first: a summary must never reference a hash that is not stored
+                    sources.execute();
+                    summaries.execute();
+                    sources = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SummarySource.class);
+                    summaries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Summary.class);
+                    migrated += pending;
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            sources.execute();
+            summaries.execute();
+            migrated += pending;
+        }
+        if (migrated > 0) {
+            logger.info("Moved the original text of {} summaries into summary_sources", migrated);
+        }
+        // After the migration, which can give one user several summaries of the same text
+        ensureUniqueSourceIndex();
+    }
+
+    /**
+     * Replace the non-unique user_source_idx with a unique one, partial on sourceHash.
+     * Existing duplicates keep their summary but lose the hash, so only the oldest is
+     * found by the lookup; a duplicate saved while the index builds is released on retry.
+     */
+    private void ensureUniqueSourceIndex() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Summary.class);
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                    .filter(index -> index.getName().equals(SOURCE_INDEX))
+                    .findFirst();
+            if (existing.map(IndexInfo::isUnique).orElse(false)) {
+                return;
+            }
+            try {
+                long released = releaseDuplicateSources();
+                if (released > 0) {
+                    logger.info("Released the source hash of {} duplicate summaries", released);
+                }
+                existing.ifPresent(index -> indexOps.dropIndex(index.getName()));
+                indexOps.ensureIndex(new Index().on("userId", Sort.Direction.ASC).on("sourceHash", Sort.Direction.ASC)
+                        .named(SOURCE_INDEX)
+                        .unique()
+                        .partial(PartialIndexFilter.of(Criteria.where("sourceHash").exists(true))));
+                logger.info("Created unique index {} on summaries", SOURCE_INDEX);
+                return;
+            } catch (DataAccessException e) {
+                logger.warn("Could not create unique index {} (attempt {}): {}", SOURCE_INDEX, attempt, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Unset sourceHash on all but the oldest summary of each user and source.
+     */
+    private long releaseDuplicateSources() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("sourceHash").exists(true)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "createdAt", "_id")),
+                Aggregation.group("userId", "sourceHash").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+
+        long released = 0;
+        String collection = mongoTemplate.getCollectionName(Summary.class);
+        for (Document group : mongoTemplate.aggregate(duplicates, collection, Document.class)) {
+            List<?> ids = group.getList("ids", Object.class);
+            released += mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids.subList(1, ids.size()))),
+                    new Update().unset("sourceHash"), collection).getModifiedCount();
+        }
+        return released;
     }
 }
@@ -0,0 +1,13 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.GroqResponse;
+
+import java.io.IOException;
+
+/**
+ * The remainder of the interceptor chain, ending in the actual Groq call.
+ */
+@FunctionalInterface
+public interface AICallChain {
+    GroqResponse proceed(AICallContext context) throws IOException;
+}
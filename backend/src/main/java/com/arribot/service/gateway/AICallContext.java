@@ -0,0 +1,20 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.AIFeature;
+
+/**
+ * Describes one LLM call as it travels through the gateway's interceptor chain.
+ */
+public class AICallContext {
+
+    private final String userId;
+    private final AIFeature feature;
+
+    public AICallContext(String userId, AIFeature feature) {
+        this.userId = userId;
+        this.feature = feature;
+    }
+
+    public String getUserId() { return userId; }
+    public AIFeature getFeature() { return feature; }
+}
@@ -0,0 +1,13 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.GroqResponse;
+
+import java.io.IOException;
+
+/**
+ * A step wrapped around every LLM call made through {@link AIGateway}.
+ * Interceptors are Spring beans applied in {@link org.springframework.core.annotation.Order} order.
+ */
+public interface AICallInterceptor {
+    GroqResponse intercept(AICallContext context, AICallChain chain) throws IOException;
+}
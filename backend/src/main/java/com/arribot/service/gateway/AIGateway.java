@@ -0,0 +1,47 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.AIFeature;
+import com.arribot.model.GroqResponse;
+import com.arribot.service.AIRequestScheduler.AICall;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Single entry point for every LLM call in the application.
+ *
+ * Each call runs through the ordered {@link AICallInterceptor} chain — metrics,
+ * daily limits with reservation, fair-share scheduling and usage events — so no
+ * feature can reach Groq without being metered.
+ */
+@Service
+public class AIGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(AIGateway.class);
+
+    private final List<AICallInterceptor> interceptors;
+
+    public AIGateway(List<AICallInterceptor> interceptors) {
+        this.interceptors = List.copyOf(interceptors);
+        logger.info("AI gateway interceptors: {}",
+                this.interceptors.stream().map(i -> i.getClass().getSimpleName()).toList());
+    }
+
+    public GroqResponse call(String userId, AIFeature feature, AICall<GroqResponse> call) throws IOException {
+        return call(new AICallContext(userId, feature), call);
+    }
+
+    public GroqResponse call(AICallContext context, AICall<GroqResponse> call) throws IOException {
+        return proceed(0, context, call);
+    }
+
+    private GroqResponse proceed(int index, AICallContext context, AICall<GroqResponse> call) throws IOException {
+        if (index == interceptors.size()) {
+            return call.call();
+        }
+        return interceptors.get(index).intercept(context, ctx -> proceed(index + 1, ctx, call));
+    }
+}
@@ -0,0 +1,50 @@
+package com.arribot.service.gateway;
+
+import com.arribot.exception.AILimitExceededException;
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.GroqResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Outermost step: times every call and counts tokens per feature and outcome.
+ */
+@Component
+@Order(100)
+public class MetricsInterceptor implements AICallInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GroqResponse intercept(AICallContext context, AICallChain chain) throws IOException {
+        String feature = context.getFeature().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            GroqResponse response = chain.proceed(context);
+            outcome = "success";
+            meterRegistry.counter("ai.gateway.tokens", "feature", feature, "type", "prompt")
+                    .increment(response.getPromptTokens());
+            meterRegistry.counter("ai.gateway.tokens", "feature", feature, "type", "completion")
+                    .increment(response.getCompletionTokens());
+            return response;
+        } catch (AILimitExceededException | RateLimitExceededException e) {
+            outcome = "limited";
+            throw e;
+        } catch (AIOverloadedException e) {
+            outcome = "shed";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("ai.gateway.calls", "feature", feature, "outcome", outcome));
+        }
+    }
+}
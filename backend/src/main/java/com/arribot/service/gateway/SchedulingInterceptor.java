@@ -0,0 +1,27 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.GroqResponse;
+import com.arribot.service.AIRequestScheduler;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Waits for a fair-share Groq slot (or is shed) before the call proceeds.
+ */
+@Component
+@Order(400)
+public class SchedulingInterceptor implements AICallInterceptor {
+
+    private final AIRequestScheduler aiRequestScheduler;
+
+    public SchedulingInterceptor(AIRequestScheduler aiRequestScheduler) {
+        this.aiRequestScheduler = aiRequestScheduler;
+    }
+
+    @Override
+    public GroqResponse intercept(AICallContext context, AICallChain chain) throws IOException {
+        return aiRequestScheduler.execute(context.getUserId(), context.getFeature(), () -> chain.proceed(context));
+    }
+}
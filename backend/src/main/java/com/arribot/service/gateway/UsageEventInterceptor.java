@@ -0,0 +1,48 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.AIUsageEvent;
+import com.arribot.model.GroqResponse;
+import com.arribot.service.AIUsageEventWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Innermost step: logs every call that reaches Groq as a usage event, with its
+ * latency, model, outcome and tokens. Token counters are derived from these events.
+ */
+@Component
+@Order(500)
+public class UsageEventInterceptor implements AICallInterceptor {
+
+    private final AIUsageEventWriter eventWriter;
+
+    @Value("${groq.model}")
+    private String model;
+
+    public UsageEventInterceptor(AIUsageEventWriter eventWriter) {
+        this.eventWriter = eventWriter;
+    }
+
+    @Override
+    public GroqResponse intercept(AICallContext context, AICallChain chain) throws IOException {
+        long start = System.nanoTime();
+        GroqResponse response;
+        try {
+            response = chain.proceed(context);
+        } catch (IOException | RuntimeException e) {
+            eventWriter.record(AIUsageEvent.error(context.getUserId(), context.getFeature(), model, elapsedMs(start)));
+            throw e;
+        }
+        String servedBy = response.getModel() != null ? response.getModel() : model;
+        eventWriter.record(AIUsageEvent.success(context.getUserId(), context.getFeature(), servedBy,
+                elapsedMs(start), response));
+        return response;
+    }
+
+    private static long elapsedMs(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,34 @@
+package com.arribot.service.gateway;
+
+import com.arribot.model.GroqResponse;
+import com.arribot.service.AILimitsService;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Enforces rate and daily limits by reserving one request before the call
+ * and handing the reservation back if the call never produces a response.
+ */
+@Component
+@Order(300)
+public class UsageLimitInterceptor implements AICallInterceptor {
+
+    private final AILimitsService aiLimitsService;
+
+    public UsageLimitInterceptor(AILimitsService aiLimitsService) {
+        this.aiLimitsService = aiLimitsService;
+    }
+
+    @Override
+    public GroqResponse intercept(AICallContext context, AICallChain chain) throws IOException {
+        aiLimitsService.checkAndIncrementUsage(context.getUserId(), context.getFeature());
+        try {
+            return chain.proceed(context);
+        } catch (IOException | RuntimeException e) {
+            aiLimitsService.releaseUsage(context.getUserId(), context.getFeature());
+            throw e;
+        }
+    }
+}
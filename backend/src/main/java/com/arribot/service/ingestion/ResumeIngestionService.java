@@ -0,0 +1,363 @@
+package com.arribot.service.ingestion;
+
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.exception.RateLimitExceededException;
+import com.arribot.model.IngestionJob;
+import com.arribot.model.IngestionJob.Status;
+import com.arribot.model.Resume;
+import com.arribot.model.SkillAnalysis;
+import com.arribot.model.User;
+import com.arribot.repository.IngestionJobRepository;
+import com.arribot.service.ResumeService;
+import com.arribot.service.SkillAnalysisService;
+import com.arribot.service.storage.ContentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs resume uploads as background jobs.
+ *
+ * The upload request only validates the file, streams it into the content store and
+ * records a QUEUED job, so its latency does not depend on the PDF or on Groq. A fixed
+ * pool of resume.ingest.workers threads claims queued jobs oldest first and takes each
+ * through extract + persist and, when a target role was given, analyze. Uploads are
+ * refused once resume.ingest.max.queued jobs are waiting.
+ *
+ * Jobs live in ingestion_jobs. A claim holds a job for resume.ingest.lease.seconds,
+ * renewed at every stage; jobs left mid-stage by a stopped process are queued again
+ * when their lease runs out, up to resume.ingest.max.attempts claims. Every write a
+ * worker makes is fenced on the attempt number of its claim, so a worker whose job was
+ * queued again from under it stops instead of overwriting the newer claim. An analysis
+ * the AI scheduler sheds or the rate limiter refuses queues the job again, not to be
+ * claimed before the Retry-After, and counts as one of those attempts.
+ */
+@Service
+public class ResumeIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumeIngestionService.class);
+
+    private static final List<Status> RUNNING = List.of(Status.EXTRACTING, Status.PERSISTING, Status.ANALYZING);
+
+    private final IngestionJobRepository jobRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ResumeService resumeService;
+    private final SkillAnalysisService skillAnalysisService;
+    private final ContentStore contentStore;
+    private final MeterRegistry meterRegistry;
+
+    // Released on every submit so an idle worker picks the job up without waiting for its poll
+    private final Semaphore wakeups = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    @Value("${resume.ingest.workers:2}")
+    private int workerCount;
+
+    @Value("${resume.ingest.max.queued:100}")
+    private int maxQueued;
+
+    @Value("${resume.ingest.lease.seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${resume.ingest.max.attempts:3}")
+    private int maxAttempts;
+
+    @Value("${resume.ingest.poll.interval.ms:5000}")
+    private long pollIntervalMs;
+
+    public ResumeIngestionService(IngestionJobRepository jobRepository,
+                                  MongoTemplate mongoTemplate,
+                                  ReactiveMongoTemplate reactiveMongoTemplate,
+                                  ResumeService resumeService,
+                                  SkillAnalysisService skillAnalysisService,
+                                  ContentStore contentStore,
+                                  MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.resumeService = resumeService;
+        this.skillAnalysisService = skillAnalysisService;
+        this.contentStore = contentStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // ─── Submission and status ─────────────────────────────────────────────────
+
+    /**
+     * Store the upload and queue a job for it.
+     *
+     * @param targetRole analyze for this role once persisted, or null to only ingest
+     * @throws IllegalArgumentException if the file is not an acceptable PDF
+     * @throws IllegalStateException    if too many jobs are already queued
+     */
+    public IngestionJob submit(MultipartFile file, User user, String targetRole) throws IOException {
+        if (jobRepository.countByStatus(Status.QUEUED) >= maxQueued) {
+            throw new IllegalStateException("Too many resumes are being processed. Please try again in a minute.");
+        }
+        String resumeId = new ObjectId().toHexString();
+        ContentStore.Stored stored = resumeService.storeUpload(file, resumeId);
+
+        LocalDateTime now = LocalDateTime.now();
+        IngestionJob job = new IngestionJob();
+        job.setUserId(user.getId());
+        job.setFileName(file.getOriginalFilename());
+        job.setFilePath(stored.path().toString());
+        job.setFileHash(stored.hash());
+        job.setResumeId(resumeId);
+        job.setTargetRole(targetRole == null || targetRole.isBlank() ? null : targetRole.trim());
+        job.setStatus(Status.QUEUED);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        job = jobRepository.save(job);
+
+        wakeups.release();
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String id, User user) {
+        return jobRepository.findByIdAndUserId(id, user.getId());
+    }
+
+    /**
+     * The job's state every time it changes, ending with COMPLETED or FAILED.
+     * Polls Mongo, which unlike a change stream works without a replica set.
+     */
+    public Flux<IngestionJob> watchJob(String id, User user) {
+        Query query = new Query(Criteria.where("id").is(id).and("userId").is(user.getId()));
+        return Flux.interval(Duration.ZERO, Duration.ofSeconds(1))
+                .concatMap(tick -> reactiveMongoTemplate.findOne(query, IngestionJob.class))
+                .distinctUntilChanged(job -> job.getStatus() + "|" + job.getUpdatedAt())
+                .takeUntil(job -> job.getStatus().isTerminal())
+                .take(Duration.ofSeconds(leaseSeconds * maxAttempts));
+    }
+
+    // ─── Workers ───────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "resume-ingest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        // A job interrupted here keeps its lease and is picked up again once that runs out
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                IngestionJob job = claim();
+                if (job == null) {
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                process(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Resume ingestion worker error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Atomically take the oldest queued job.
+     */
+    private IngestionJob claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Query queued = new Query(Criteria.where("status").is(Status.QUEUED)
+                .orOperator(Criteria.where("notBefore").is(null), Criteria.where("notBefore").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update()
+                .set("status", Status.EXTRACTING)
+                .set("leaseUntil", now.plusSeconds(leaseSeconds))
+                .unset("notBefore")
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(queued, update, FindAndModifyOptions.options().returnNew(true), IngestionJob.class);
+    }
+
+    private void process(IngestionJob job) {
+        if (job.getAttempts() > maxAttempts) {
+            fail(job, "Gave up after " + maxAttempts + " attempts");
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        try {
+            // A retried job may have persisted its resume before the process stopped
+            Resume resume = resumeService.findById(job.getResumeId()).orElse(null);
+            if (resume == null) {
+                String text = resumeService.extractText(job.getFileHash(), job.getFilePath());
+                advance(job, Status.PERSISTING);
+                resume = resumeService.saveIngested(job.getResumeId(), job.getUserId(), job.getFileName(),
+                        job.getFilePath(), job.getFileHash(), text);
+            }
+
+            if (job.getTargetRole() != null) {
+                advance(job, Status.ANALYZING);
+                SkillAnalysis analysis = skillAnalysisService.analyzeResume(resume, job.getTargetRole());
+                job.setAnalysisId(analysis.getId());
+            }
+            if (!finish(job, Status.COMPLETED, null)) {
+                throw new LeaseLostException();
+            }
+        } catch (AIOverloadedException e) {
+            outcome = "deferred";
+            retryLater(job, e.getRetryAfterSeconds(), e.getMessage());
+        } catch (RateLimitExceededException e) {
+            outcome = "deferred";
+            retryLater(job, e.getRetryAfterSeconds(), e.getMessage());
+        } catch (LeaseLostException e) {
+            outcome = "superseded";
+            logger.info("Resume ingestion job {} was claimed again while in {}; abandoning attempt {}",
+                    job.getId(), job.getStatus(), job.getAttempts());
+        } catch (Exception e) {
+            if (!running) {
+                // Shutting down; the lease runs out and the job is retried
+                outcome = "interrupted";
+                return;
+            }
+            outcome = "failed";
+            logger.warn("Resume ingestion job {} failed in {}: {}", job.getId(), job.getStatus(), e.getMessage());
+            fail(job, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("resume.ingest.duration", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Move the job to its next stage and renew its lease.
+     *
+     * @throws LeaseLostException if the job is no longer held by this claim
+     */
+    private void advance(IngestionJob job, Status status) {
+        LocalDateTime now = LocalDateTime.now();
+        long matched = mongoTemplate.updateFirst(claimed(job), new Update()
+                .set("status", status)
+                .set("leaseUntil", now.plusSeconds(leaseSeconds))
+                .set("updatedAt", now), IngestionJob.class).getMatchedCount();
+        if (matched == 0) {
+            throw new LeaseLostException();
+        }
+        job.setStatus(status);
+    }
+
+    /**
+     * Queue the job again after a temporary refusal, or fail it if that was its last attempt.
+     * The resume is kept, so the retry goes straight to analysis.
+     */
+    private void retryLater(IngestionJob job, long retryAfterSeconds, String error) {
+        if (job.getAttempts() >= maxAttempts) {
+            logger.warn("Resume ingestion job {} refused by the AI service on its last attempt: {}", job.getId(), error);
+            fail(job, error);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long matched = mongoTemplate.updateFirst(claimed(job), new Update()
+                .set("status", Status.QUEUED)
+                .set("notBefore", now.plusSeconds(Math.max(1, retryAfterSeconds)))
+                .set("error", error)
+                .unset("leaseUntil")
+                .set("updatedAt", now), IngestionJob.class).getMatchedCount();
+        if (matched > 0) {
+            logger.info("Resume ingestion job {} deferred {}s after attempt {}: {}",
+                    job.getId(), retryAfterSeconds, job.getAttempts(), error);
+        }
+    }
+
+    private void fail(IngestionJob job, String error) {
+        if (!finish(job, Status.FAILED, error != null ? error : "Processing failed")) {
+            logger.info("Resume ingestion job {} was claimed again; not failing attempt {}", job.getId(), job.getAttempts());
+            return;
+        }
+        // Without a persisted resume nothing uses the stored upload's reference
+        if (resumeService.findById(job.getResumeId()).isEmpty() && job.getFileHash() != null) {
+            contentStore.release(job.getFileHash(), job.getResumeId());
+        }
+    }
+
+    /**
+     * @return false if the job is no longer held by this claim and was left alone
+     */
+    private boolean finish(IngestionJob job, Status status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateFirst(claimed(job), new Update()
+                .set("status", status)
+                .set("error", error)
+                .set("analysisId", job.getAnalysisId())
+                .unset("leaseUntil")
+                .set("updatedAt", now)
+                .set("finishedAt", now), IngestionJob.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * The job while it is still running under this claim; once requeued or claimed again it no longer matches.
+     */
+    private static Query claimed(IngestionJob job) {
+        return new Query(Criteria.where("id").is(job.getId())
+                .and("attempts").is(job.getAttempts())
+                .and("status").in(RUNNING));
+    }
+
+    /**
+     * Queue again every job whose worker stopped holding it, e.g. because the process exited.
+     */
+    @Scheduled(fixedDelayString = "${resume.ingest.recovery.interval.ms:60000}")
+    public void requeueExpired() {
+        Query expired = new Query(Criteria.where("status").in(RUNNING).and("leaseUntil").lt(LocalDateTime.now()));
+        long requeued = mongoTemplate.updateMulti(expired, new Update()
+                .set("status", Status.QUEUED)
+                .unset("leaseUntil")
+                .set("updatedAt", LocalDateTime.now()), IngestionJob.class).getModifiedCount();
+        if (requeued > 0) {
+            logger.info("Requeued {} resume ingestion jobs with expired leases", requeued);
+            wakeups.release((int) Math.min(requeued, workerCount));
+        }
+    }
+
+    /**
+     * Thrown when a job was queued again or claimed by another worker while this one still ran it.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Ingestion job lease lost", null, false, false);
+        }
+    }
+}
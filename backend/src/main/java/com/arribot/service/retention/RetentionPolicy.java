@@ -0,0 +1,21 @@
+package com.arribot.service.retention;
+
+import java.time.Duration;
+
+/**
+ * How long documents of one collection are kept, counted from a date field.
+ *
+ * @param timeField field the TTL index is built on; must hold a date
+ * @param retention zero disables expiry for the collection
+ * @param archive   write documents to NDJSON segments before they expire
+ */
+public record RetentionPolicy(String collection, String timeField, Duration retention, boolean archive) {
+
+    public boolean enabled() {
+        return !retention.isZero() && !retention.isNegative();
+    }
+
+    public String ttlIndexName() {
+        return timeField + "_ttl_idx";
+    }
+}
@@ -0,0 +1,189 @@
+package com.arribot.service.retention;
+
+import com.arribot.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keeps hot collections bounded.
+ *
+ * Each policy becomes a TTL index on the collection's date field, so MongoDB itself
+ * deletes expired documents; changing a retention period is applied with collMod on
+ * the next start. Collections with archiving on are copied to NDJSON segments by a
+ * nightly job once they are within retention.archive.lead.days of expiry. OTP
+ * fields cannot expire through TTL (that would delete the user), so a job $unsets
+ * them retention.otp.grace.minutes after they expire.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    private static final String RESTORED_SUFFIX = "_restored";
+
+    private final MongoTemplate mongoTemplate;
+    private final SegmentArchiver segmentArchiver;
+
+    @Value("${retention.otp.grace.minutes:1440}")
+    private long otpGraceMinutes;
+
+    @Value("${retention.aiusage.days:400}")
+    private int aiUsageDays;
+
+    @Value("${retention.aiusage.archive:false}")
+    private boolean aiUsageArchive;
+
+    @Value("${retention.chat.days:180}")
+    private int chatDays;
+
+    @Value("${retention.chat.archive:false}")
+    private boolean chatArchive;
+
+    @Value("${retention.summaries.days:365}")
+    private int summariesDays;
+
+    @Value("${retention.summaries.archive:false}")
+    private boolean summariesArchive;
+
+    @Value("${retention.ingestion.jobs.days:7}")
+    private int ingestionJobsDays;
+
+    @Value("${retention.archive.lead.days:3}")
+    private int archiveLeadDays;
+
+    @Value("${retention.restore.path:}")
+    private String restorePath;
+
+    public RetentionService(MongoTemplate mongoTemplate, SegmentArchiver segmentArchiver) {
+        this.mongoTemplate = mongoTemplate;
+        this.segmentArchiver = segmentArchiver;
+    }
+
+    public List<RetentionPolicy> policies() {
+        return List.of(
+                new RetentionPolicy("ai_usage", "createdAt", Duration.ofDays(aiUsageDays), aiUsageArchive),
+                new RetentionPolicy("chat_buckets", "lastTimestamp", Duration.ofDays(chatDays), chatArchive),
+                new RetentionPolicy("summaries", "createdAt", Duration.ofDays(summariesDays), summariesArchive),
+                // A source unused for as long as summaries are kept is referenced by none of them
+                new RetentionPolicy("summary_sources", "lastUsedAt", Duration.ofDays(summariesDays), summariesArchive),
+                // Only finished jobs carry finishedAt, so queued and running ones never expire
+                new RetentionPolicy("ingestion_jobs", "finishedAt", Duration.ofDays(ingestionJobsDays), false));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyPolicies() {
+        for (RetentionPolicy policy : policies()) {
+            try {
+                syncTtlIndex(policy);
+            } catch (RuntimeException e) {
+                logger.error("Failed to apply retention policy to {}: {}", policy.collection(), e.getMessage());
+            }
+        }
+        if (!restorePath.isBlank()) {
+            restore(Path.of(restorePath));
+        }
+    }
+
+    private void syncTtlIndex(RetentionPolicy policy) {
+        IndexOperations indexOps = mongoTemplate.indexOps(policy.collection());
+        Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                .filter(index -> index.getName().equals(policy.ttlIndexName()))
+                .findFirst();
+
+        if (!policy.enabled()) {
+            existing.ifPresent(index -> {
+                indexOps.dropIndex(index.getName());
+                logger.info("Retention disabled for {}; dropped {}", policy.collection(), index.getName());
+            });
+            return;
+        }
+        if (existing.isEmpty()) {
+            indexOps.ensureIndex(new Index().on(policy.timeField(), Sort.Direction.ASC)
+                    .named(policy.ttlIndexName())
+                    .expire(policy.retention()));
+            logger.info("Created TTL index on {}.{} ({} days)",
+                    policy.collection(), policy.timeField(), policy.retention().toDays());
+        } else if (!existing.get().getExpireAfter().map(policy.retention()::equals).orElse(false)) {
+            mongoTemplate.getDb().runCommand(new Document("collMod", policy.collection())
+                    .append("index", new Document("name", policy.ttlIndexName())
+                            .append("expireAfterSeconds", policy.retention().toSeconds())));
+            logger.info("Changed retention of {} to {} days", policy.collection(), policy.retention().toDays());
+        }
+    }
+
+    /**
+     * Archive everything that will expire within the lead window and has not been archived yet.
+     */
+    @Scheduled(cron = "${retention.archive.cron:0 30 3 * * *}")
+    public void archiveExpiring() {
+        LocalDateTime now = LocalDateTime.now();
+        for (RetentionPolicy policy : policies()) {
+            if (!policy.enabled() || !policy.archive()) continue;
+
+            LocalDateTime cutoff = now.minus(policy.retention()).plusDays(archiveLeadDays);
+            if (cutoff.isAfter(now)) {
+                cutoff = now;
+            }
+            try {
+                long archived = segmentArchiver.archiveUpTo(policy, cutoff);
+                if (archived > 0) {
+                    logger.info("Archived {} {} documents older than {}", archived, policy.collection(), cutoff);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Archiving {} failed; it will be retried on the next run: {}",
+                        policy.collection(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${retention.otp.cleanup.interval.ms:900000}")
+    public void clearExpiredOtps() {
+        // Kept a while past expiry so a late attempt is still told the code expired
+        Query stale = new Query(Criteria.where("otpExpiry").lt(LocalDateTime.now().minusMinutes(otpGraceMinutes)));
+        long cleared = mongoTemplate.updateMulti(stale, new Update().unset("otp").unset("otpExpiry"), User.class)
+                .getModifiedCount();
+        if (cleared > 0) {
+            logger.info("Cleared {} expired OTPs", cleared);
+        }
+    }
+
+    /**
+     * Restore one segment, or every segment under a directory, into "&lt;collection&gt;_restored"
+     * (the archive layout is dir/collection/segment). Not the live collection: its TTL index
+     * would delete the restored documents again within a minute.
+     */
+    public void restore(Path path) {
+        try (Stream<Path> files = Files.isDirectory(path) ? Files.walk(path) : Stream.of(path)) {
+            for (Path segment : files.filter(Files::isRegularFile).filter(SegmentArchiver::isSegment).sorted().toList()) {
+                String collection = segment.getParent().getFileName().toString() + RESTORED_SUFFIX;
+                long restored = segmentArchiver.restore(collection, segment);
+                logger.info("Restored {} documents into {} from {}", restored, collection, segment);
+            }
+        } catch (IOException e) {
+            logger.error("Restore from {} failed: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.arribot.service.retention;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copies documents that are about to expire into gzip-compressed NDJSON segment files
+ * under retention.archive.dir/&lt;collection&gt;/, and loads such segments back.
+ *
+ * Documents are written as canonical extended JSON, so types (dates, ObjectIds,
+ * compressed binary) survive a restore unchanged. A segment is written to a .part
+ * file and renamed once complete; the per-collection watermark in retention_state
+ * only advances after the rename, so an interrupted run is simply repeated.
+ */
+@Component
+public class SegmentArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentArchiver.class);
+
+    private static final String STATE_COLLECTION = "retention_state";
+    private static final String SEGMENT_SUFFIX = ".ndjson.gz";
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+    private static final int RESTORE_BATCH = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${retention.archive.dir:./archive}")
+    private String archiveDir;
+
+    @Value("${retention.archive.segment.max.documents:50000}")
+    private int maxDocumentsPerSegment;
+
+    public SegmentArchiver(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Archive every document of the collection past the watermark whose time field is at or before cutoff.
+     *
+     * @return number of documents written
+     */
+    public long archiveUpTo(RetentionPolicy policy, LocalDateTime cutoff) throws IOException {
+        String collection = policy.collection();
+        String field = policy.timeField();
+        Document state = mongoTemplate.findById(collection, Document.class, STATE_COLLECTION);
+
+        Criteria window = Criteria.where(field).lte(cutoff);
+        if (state != null) {
+            Object lastTime = state.get("lastTime");
+            Object lastId = state.get("lastId");
+            window = new Criteria().andOperator(window, new Criteria().orOperator(
+                    Criteria.where(field).gt(lastTime),
+                    new Criteria().andOperator(Criteria.where(field).is(lastTime), Criteria.where("_id").gt(lastId))));
+        }
+        // Walks the (timeField, _id) index each archived collection carries
+        Query query = new Query(window).with(Sort.by(field, "_id"));
+
+        Path dir = Path.of(archiveDir, collection);
+        Files.createDirectories(dir);
+
+        long total = 0;
+        Segment segment = null;
+        try (Stream<Document> docs = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Iterator<Document> it = docs.iterator(); it.hasNext(); ) {
+                Document doc = it.next();
+                if (segment == null) {
+                    segment = Segment.open(dir, collection);
+                }
+                segment.write(doc);
+                total++;
+                if (segment.count == maxDocumentsPerSegment) {
+                    commit(segment, collection, doc.get(field), doc.get("_id"));
+                    segment = null;
+                }
+            }
+            if (segment != null) {
+                commit(segment, collection, segment.lastTime(field), segment.lastId());
+                segment = null;
+            }
+        } finally {
+            if (segment != null) {
+                segment.abandon();
+            }
+        }
+        return total;
+    }
+
+    private void commit(Segment segment, String collection, Object lastTime, Object lastId) throws IOException {
+        Path file = segment.close();
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(collection)),
+                new Update().set("lastTime", lastTime).set("lastId", lastId).set("updatedAt", new Date()),
+                STATE_COLLECTION);
+        logger.info("Archived {} {} documents to {}", segment.count, collection, file);
+    }
+
+    /**
+     * Upsert every document of a segment back into its collection, keyed by _id.
+     *
+     * @return number of documents restored
+     */
+    public long restore(String collection, Path segment) throws IOException {
+        long restored = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int pending = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Document doc = Document.parse(line);
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(doc.get("_id"))), doc,
+                        FindAndReplaceOptions.options().upsert());
+                if (++pending == RESTORE_BATCH) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    restored += pending;
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+            restored += pending;
+        }
+        return restored;
+    }
+
+    public static boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static final class Segment {
+        private final Path part;
+        private final Path target;
+        private final Writer writer;
+        private Document last;
+        private int count;
+
+        private Segment(Path part, Path target, Writer writer) {
+            this.part = part;
+            this.target = target;
+            this.writer = writer;
+        }
+
+        static Segment open(Path dir, String collection) throws IOException {
+            String name = collection + "-" + LocalDateTime.now().format(SEGMENT_TIME) + "-" + System.nanoTime();
+            Path target = dir.resolve(name + SEGMENT_SUFFIX);
+            Path part = dir.resolve(name + SEGMENT_SUFFIX + ".part");
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(part)), StandardCharsets.UTF_8));
+            return new Segment(part, target, writer);
+        }
+
+        void write(Document doc) throws IOException {
+            writer.write(doc.toJson(JSON));
+            writer.write('\n');
+            last = doc;
+            count++;
+        }
+
+        Object lastTime(String field) { return last.get(field); }
+        Object lastId() { return last.get("_id"); }
+
+        Path close() throws IOException {
+            writer.close();
+            return Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        void abandon() {
+            try {
+                writer.close();
+                Files.deleteIfExists(part);
+            } catch (IOException e) {
+                logger.warn("Could not remove partial segment {}: {}", part, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.arribot.service.storage;
+
+import com.arribot.model.CompressedText;
+import com.arribot.model.StoredFile;
+import com.arribot.service.PDFProcessorService;
+import com.arribot.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for uploaded PDFs.
+ *
+ * A file lives at dir/ab/cd/&lt;sha256&gt;.pdf (the first two byte pairs of its hash as
+ * directories, so no directory grows past a few entries however many files there are),
+ * with a {@link StoredFile} document listing the resumes that reference it. Uploads
+ * stream into dir/tmp while being hashed, and are then moved into place — or dropped, if
+ * the same bytes are already stored. Files nothing has referenced for
+ * storage.gc.grace.minutes are deleted by a periodic sweep, never on release itself, so
+ * an upload of the same bytes arriving just after the last release still finds its file.
+ */
+@Service
+public class ContentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+
+    private static final String TMP_DIR = "tmp";
+    private static final String EXTENSION = ".pdf";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Serializes store and collect for the same hash within this process
+    private static final int LOCK_STRIPES = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Value("${file.upload.dir:./uploads/resumes}")
+    private String uploadDir;
+
+    @Value("${storage.gc.grace.minutes:60}")
+    private long gcGraceMinutes;
+
+    public ContentStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Stream a PDF into the store and add {@code ref} to its references, in one pass over
+     * the input that also hashes it and checks the PDF header.
+     *
+     * @throws IllegalArgumentException if the content is empty or not a PDF
+     */
+    public Stored store(InputStream in, String ref) throws IOException {
+        Path tmpDir = root().resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        Path part = tmpDir.resolve(UUID.randomUUID() + ".part");
+
+        MessageDigest digest = ContentHash.newDigest();
+        long size = 0;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(part), digest)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            // readNBytes fills the buffer except at the end, so the first chunk holds the whole header
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                if (size == 0 && !PDFProcessorService.hasPdfHeader(buffer, read)) {
+                    throw new IllegalArgumentException("Invalid PDF file");
+                }
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        if (size == 0) {
+            Files.deleteIfExists(part);
+            throw new IllegalArgumentException("Invalid PDF file");
+        }
+        return adopt(part, HexFormat.of().formatHex(digest.digest()), size, ref);
+    }
+
+    /**
+     * Take a complete file already hashed into the store under {@code ref}: move it into
+     * place, or delete it if the store already holds the same bytes.
+     */
+    public Stored adopt(Path file, String hash, long size, String ref) throws IOException {
+        Path target = pathFor(hash);
+        synchronized (lockFor(hash)) {
+            // Reference first: from here the sweep leaves the file alone
+            LocalDateTime now = LocalDateTime.now();
+            mongoTemplate.upsert(new Query(Criteria.where("hash").is(hash)), new Update()
+                    .addToSet("refs", ref)
+                    .set("lastReferencedAt", now)
+                    .setOnInsert("path", target.toString())
+                    .setOnInsert("size", size)
+                    .setOnInsert("createdAt", now), StoredFile.class);
+
+            boolean duplicate = Files.exists(target);
+            if (duplicate) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new Stored(hash, target, size, duplicate);
+        }
+    }
+
+    /**
+     * Drop {@code ref} from the file's references; the file goes once the sweep finds it unreferenced.
+     */
+    public void release(String hash, String ref) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("hash").is(hash)), new Update()
+                .pull("refs", ref)
+                .set("lastReferencedAt", LocalDateTime.now()), StoredFile.class);
+    }
+
+    /**
+     * Text extracted from these bytes by an earlier upload, if any
+     */
+    public Optional<String> cachedText(String hash) {
+        Query query = new Query(Criteria.where("hash").is(hash).and("extractedText").exists(true));
+        query.fields().include("extractedText");
+        return Optional.ofNullable(mongoTemplate.findOne(query, StoredFile.class))
+                .map(StoredFile::getExtractedText);
+    }
+
+    public void cacheText(String hash, String text) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("hash").is(hash)),
+                new Update().set("extractedText", CompressedText.of(text)), StoredFile.class);
+    }
+
+    public Path pathFor(String hash) {
+        return root().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + EXTENSION);
+    }
+
+    /**
+     * Delete files that have had no references for the grace period.
+     */
+    @Scheduled(fixedDelayString = "${storage.gc.interval.ms:3600000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMinutes(gcGraceMinutes));
+        Criteria unreferenced = Criteria.where("refs").size(0).and("lastReferencedAt").lt(cutoff);
+        Query candidates = new Query(unreferenced);
+        candidates.fields().include("hash");
+
+        int deleted = 0;
+        for (StoredFile candidate : mongoTemplate.find(candidates, StoredFile.class)) {
+            String hash = candidate.getHash();
+            synchronized (lockFor(hash)) {
+                // Still unreferenced? An upload may have taken a reference since the find
+                Query stillUnreferenced = new Query(Criteria.where("hash").is(hash)
+                        .and("refs").size(0).and("lastReferencedAt").lt(cutoff));
+                if (mongoTemplate.remove(stillUnreferenced, StoredFile.class).getDeletedCount() == 0) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(pathFor(hash));
+                    deleted++;
+                } catch (IOException e) {
+                    logger.warn("Failed to delete stored file {}: {}", hash, e.getMessage());
+                }
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} unreferenced stored files", deleted);
+        }
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).toAbsolutePath();
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    /**
+     * @param duplicate the store already held these bytes, so nothing new was written
+     */
+    public record Stored(String hash, Path path, long size, boolean duplicate) {}
+}
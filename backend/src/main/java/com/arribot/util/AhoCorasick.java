@@ -0,0 +1,170 @@
+package com.arribot.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive Aho-Corasick matcher for whole-word ASCII patterns.
+ *
+ * The trie is compiled into a full transition table over the characters the patterns
+ * use, so scanning costs one array lookup per input char however many patterns there
+ * are. A match only counts when it is not glued to a letter or digit on either side
+ * (checked on sides where the pattern itself starts or ends with one), so "Java" is found
+ * in "Java, Spring" but not in "JavaScript". Instances are immutable and thread-safe.
+ */
+public final class AhoCorasick {
+
+    private static final int ROOT = 0;
+
+    // Pattern characters mapped to columns of the table; -1 for chars no pattern uses
+    private final int[] columns = new int[128];
+    private final int width;
+    private final int[] next;
+    // Per state: matches ending there, each packed as (pattern length << 32 | pattern id)
+    private final long[][] outputs;
+    private final int[] patternFirstChars;
+    private final int[] patternLastChars;
+
+    /**
+     * @param patterns matched case-insensitively; a pattern's id is its index in the list
+     * @throws IllegalArgumentException if a pattern is empty or not ASCII
+     */
+    public AhoCorasick(List<String> patterns) {
+        Arrays.fill(columns, -1);
+        int w = 0;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            for (char c : pattern.toLowerCase(Locale.ROOT).toCharArray()) {
+                if (c >= 128) {
+                    throw new IllegalArgumentException("Pattern is not ASCII: " + pattern);
+                }
+                if (columns[c] < 0) {
+                    columns[c] = w++;
+                }
+            }
+        }
+        // Upper case input uses the lower case column
+        for (char c = 'A'; c <= 'Z'; c++) {
+            columns[c] = columns[Character.toLowerCase(c)];
+        }
+        width = Math.max(w, 1);
+
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Long>> found = new ArrayList<>();
+        trie.add(newRow());
+        found.add(new ArrayList<>());
+        patternFirstChars = new int[patterns.size()];
+        patternLastChars = new int[patterns.size()];
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id).toLowerCase(Locale.ROOT);
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                int column = columns[pattern.charAt(i)];
+                if (trie.get(state)[column] < 0) {
+                    trie.get(state)[column] = trie.size();
+                    trie.add(newRow());
+                    found.add(new ArrayList<>());
+                }
+                state = trie.get(state)[column];
+            }
+            found.get(state).add(((long) pattern.length() << 32) | id);
+            patternFirstChars[id] = pattern.charAt(0);
+            patternLastChars[id] = pattern.charAt(pattern.length() - 1);
+        }
+
+        // Failure links, breadth first, folded into the table so missing edges jump directly
+        int states = trie.size();
+        int[] fail = new int[states];
+        next = new int[states * width];
+        outputs = new long[states][];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = trie.get(ROOT)[column];
+            next[column] = child < 0 ? ROOT : child;
+            if (child > 0) {
+                queue.add(child);
+            }
+        }
+        outputs[ROOT] = new long[0];
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Long> matches = found.get(state);
+            // The root has no outputs and a parent is always processed first
+            for (long inherited : outputs[fail[state]]) {
+                matches.add(inherited);
+            }
+            outputs[state] = matches.stream().mapToLong(Long::longValue).toArray();
+            for (int column = 0; column < width; column++) {
+                int child = trie.get(state)[column];
+                int viaFail = next[fail[state] * width + column];
+                if (child < 0) {
+                    next[state * width + column] = viaFail;
+                } else {
+                    next[state * width + column] = child;
+                    fail[child] = viaFail;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls {@code listener} with every whole-word match, in order of where the matches end.
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int column = c < 128 ? columns[c] : -1;
+            if (column < 0) {
+                state = ROOT;
+                continue;
+            }
+            state = next[state * width + column];
+            for (long match : outputs[state]) {
+                int id = (int) match;
+                int start = i + 1 - (int) (match >>> 32);
+                if (isWholeWord(text, start, i + 1, id)) {
+                    listener.onMatch(id, start, i + 1);
+                }
+            }
+        }
+    }
+
+    public int stateCount() {
+        return outputs.length;
+    }
+
+    private boolean isWholeWord(CharSequence text, int start, int end, int id) {
+        if (isWordChar(patternFirstChars[id]) && start > 0 && isWordChar(text.charAt(start - 1))) {
+            return false;
+        }
+        return !(isWordChar(patternLastChars[id]) && end < text.length() && isWordChar(text.charAt(end)));
+    }
+
+    private static boolean isWordChar(int c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private int[] newRow() {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * @param end exclusive
+         */
+        void onMatch(int patternId, int start, int end);
+    }
+}
@@ -0,0 +1,98 @@
+package com.arribot.util;
+
+import com.arribot.model.SearchHit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Search result highlights: which words of a field match the query, as offsets into a
+ * fragment of the field. The offsets are part of the search API, so clients can render
+ * matches without parsing markup.
+ */
+public final class SearchHighlighter {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MAX_HIGHLIGHTS = 3;
+    private static final int FRAGMENT_LEAD = 60;
+    private static final int FRAGMENT_LENGTH = 200;
+
+    private SearchHighlighter() {}
+
+    /**
+     * Lower-cased query words with a crude English suffix strip, roughly mirroring the
+     * stemming the text index applies. Negated terms (-word) are left out.
+     */
+    public static Set<String> terms(String queryText) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String raw : queryText.split("\\s+")) {
+            if (raw.startsWith("-")) continue;
+            Matcher m = WORD.matcher(raw.toLowerCase(Locale.ROOT));
+            while (m.find()) {
+                String word = m.group();
+                if (word.length() >= 2) terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String word) {
+        for (String suffix : new String[] {"ing", "ed", "es", "s"}) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= 3) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Highlights of the first fields, in order, that match; at most three.
+     */
+    public static List<SearchHit.Highlight> highlights(List<Map.Entry<String, String>> fields, Set<String> terms) {
+        List<SearchHit.Highlight> highlights = new ArrayList<>();
+        for (Map.Entry<String, String> field : fields) {
+            if (highlights.size() == MAX_HIGHLIGHTS) break;
+            SearchHit.Highlight highlight = highlight(field.getKey(), field.getValue(), terms);
+            if (highlight != null) highlights.add(highlight);
+        }
+        return highlights;
+    }
+
+    /**
+     * A window of the text starting a little before its first match, with every match
+     * inside the window; null if the text has no match.
+     */
+    static SearchHit.Highlight highlight(String field, String text, Set<String> terms) {
+        if (text == null || text.isEmpty()) return null;
+
+        List<int[]> ranges = new ArrayList<>();
+        Matcher m = WORD.matcher(text);
+        while (m.find()) {
+            String word = m.group().toLowerCase(Locale.ROOT);
+            for (String term : terms) {
+                if (word.startsWith(term)) {
+                    ranges.add(new int[] {m.start(), m.end()});
+                    break;
+                }
+            }
+        }
+        if (ranges.isEmpty()) return null;
+
+        int start = Math.max(0, ranges.get(0)[0] - FRAGMENT_LEAD);
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) start--;
+        int end = Math.min(text.length(), start + FRAGMENT_LENGTH);
+
+        List<int[]> matches = new ArrayList<>();
+        for (int[] range : ranges) {
+            if (range[1] > end) break;
+            matches.add(new int[] {range[0] - start, range[1] - start});
+        }
+        return new SearchHit.Highlight(field, text.substring(start, end), matches);
+    }
+}
@@ -0,0 +1,98 @@
+package com.arribot.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonBinary;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflates large text fields for storage.
+ *
+ * Texts at or above mongodb.compression.threshold.bytes (UTF-8) are stored as
+ * BSON binary of a user-defined subtype holding zlib-deflated UTF-8; shorter ones,
+ * and any that would not shrink, stay plain strings. Storage savings show up in
+ * mongo.text.bytes (form=raw vs form=stored) and the read cost in mongo.text.inflate.
+ */
+@Component
+public class TextCompressor {
+
+    public static final byte BINARY_SUBTYPE = (byte) 0x80;
+
+    @Value("${mongodb.compression.threshold.bytes:1024}")
+    private int thresholdBytes;
+
+    private final DistributionSummary rawBytes;
+    private final DistributionSummary storedBytes;
+    private final Timer inflateTimer;
+
+    public TextCompressor(MeterRegistry meterRegistry) {
+        this.rawBytes = DistributionSummary.builder("mongo.text.bytes")
+                .description("Size of compressible text fields written")
+                .baseUnit("bytes").tag("form", "raw").register(meterRegistry);
+        this.storedBytes = DistributionSummary.builder("mongo.text.bytes")
+                .description("Size of compressible text fields written")
+                .baseUnit("bytes").tag("form", "stored").register(meterRegistry);
+        this.inflateTimer = Timer.builder("mongo.text.inflate")
+                .description("Time to decompress a stored text field on first access")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the text as a string, or as binary when compressing is worth it
+     */
+    public BsonValue encode(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        rawBytes.record(raw.length);
+        if (raw.length >= thresholdBytes) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                storedBytes.record(deflated.length);
+                return new BsonBinary(BINARY_SUBTYPE, deflated);
+            }
+        }
+        storedBytes.record(raw.length);
+        return new BsonString(text);
+    }
+
+    public String decode(byte[] deflated) {
+        return inflateTimer.record(() -> new String(inflate(deflated), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3);
+        Deflater deflater = new Deflater();
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try (InflaterInputStream stream = new InflaterInputStream(new ByteArrayInputStream(deflated), inflater)) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
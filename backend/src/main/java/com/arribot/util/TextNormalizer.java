@@ -0,0 +1,86 @@
+package com.arribot.util;
+
+/**
+ * Single-pass cleanup of extracted PDF text.
+ *
+ * Gives exactly the result of
+ * {@code text.replaceAll("\\s+", " ").replaceAll("[^\\p{L}\\p{N}\\p{P}\\s]", "").trim()}:
+ * each run of ASCII whitespace becomes one space, every code point that is not a letter,
+ * number, punctuation or whitespace is dropped, and surrounding spaces are trimmed. As in
+ * the regex version, a dropped character between two whitespace runs leaves both spaces.
+ *
+ * Output is written into a per-thread char buffer, so the only allocation for a document
+ * is the returned String. When the text has chars beyond Latin-1 that includes the JDK's
+ * attempt to compact it, about three bytes per char in all (see TextNormalizerBenchmark).
+ */
+public final class TextNormalizer {
+
+    // Buffers grown past this are not kept, so one huge document does not pin its buffer
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[8192]);
+
+    private TextNormalizer() {}
+
+    public static String clean(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        int length = text.length();
+        // Output never has more chars than the input
+        char[] out = BUFFERS.get();
+        if (out.length < length) {
+            out = new char[length];
+            if (length <= MAX_RETAINED_CHARS) {
+                BUFFERS.set(out);
+            }
+        }
+
+        int n = 0;
+        boolean inWhitespace = false;
+        for (int i = 0; i < length; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+
+            if (isRegexWhitespace(cp)) {
+                if (!inWhitespace) {
+                    out[n++] = ' ';
+                    inWhitespace = true;
+                }
+                continue;
+            }
+            inWhitespace = false;
+            if (isKept(cp)) {
+                n += Character.toChars(cp, out, n);
+            }
+        }
+
+        // trim(): only spaces can remain at or below U+0020
+        int start = 0;
+        while (start < n && out[start] == ' ') start++;
+        while (n > start && out[n - 1] == ' ') n--;
+        return new String(out, start, n - start);
+    }
+
+    /**
+     * {@code \s} without UNICODE_CHARACTER_CLASS: [ \t\n\x0B\f\r]
+     */
+    private static boolean isRegexWhitespace(int cp) {
+        return cp == ' ' || (cp >= '\t' && cp <= '\r');
+    }
+
+    /**
+     * {@code \p{L}}, {@code \p{N}} or {@code \p{P}}
+     */
+    private static boolean isKept(int cp) {
+        return switch (Character.getType(cp)) {
+            case Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER, Character.TITLECASE_LETTER,
+                 Character.MODIFIER_LETTER, Character.OTHER_LETTER,
+                 Character.DECIMAL_DIGIT_NUMBER, Character.LETTER_NUMBER, Character.OTHER_NUMBER,
+                 Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION,
+                 Character.FINAL_QUOTE_PUNCTUATION, Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+}
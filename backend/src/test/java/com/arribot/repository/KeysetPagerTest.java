@@ -0,0 +1,152 @@
+package com.arribot.repository;
+
+import com.arribot.model.CursorPage;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeysetPagerTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2026, 10, 1, 12, 0, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2026, 10, 2, 12, 0, 0, 123_456_000);
+    private static final Criteria OWNER = Criteria.where("userId").is("u1");
+
+    private MongoTemplate mongoTemplate;
+    private KeysetPager pager;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class, RETURNS_DEEP_STUBS);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        // As configured by Spring Boot: java.time values are simple types, not entities
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        pager = new KeysetPager(mongoTemplate);
+        ReflectionTestUtils.setField(pager, "defaultSize", 2);
+        ReflectionTestUtils.setField(pager, "maxSize", 3);
+    }
+
+    @Test
+    void firstPageFetchesOneExtraToDetectMore() {
+        returns(new Item("c", T2), new Item("b", T1), new Item("a", T1));
+
+        CursorPage<Item> page = pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, null, null);
+
+        assertThat(page.getItems()).extracting(Item::id).containsExactly("c", "b");
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getNextCursor()).isNotBlank();
+
+        Query query = lastQuery();
+        assertThat(query.getQueryObject()).isEqualTo(new Document("userId", "u1"));
+        assertThat(query.getLimit()).isEqualTo(3);
+        assertThat(query.getSortObject()).isEqualTo(new Document("createdAt", -1).append("id", -1));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        returns(new Item("a", T1));
+
+        CursorPage<Item> page = pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, null, null);
+
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void descendingCursorResumesStrictlyAfterTheLastItem() {
+        returns(new Item("c", T2), new Item("b", T2), new Item("a", T1));
+        String cursor = pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, null, null).getNextCursor();
+
+        pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, cursor, null);
+
+        // Older, or as old with a smaller id, or no timestamp (sorts last descending)
+        Document after = new Document("$or", List.of(
+                new Document("createdAt", new Document("$lt", T2)),
+                new Document("$and", List.of(new Document("createdAt", T2), new Document("id", new Document("$lt", "b")))),
+                new Document("createdAt", null)));
+        assertThat(lastQuery().getQueryObject())
+                .isEqualTo(new Document("$and", List.of(new Document("userId", "u1"), after)));
+    }
+
+    @Test
+    void ascendingCursorResumesStrictlyAfterTheLastItem() {
+        returns(new Item("a", T1), new Item("b", T2), new Item("c", T2));
+        String cursor = pager.page(Item.class, null, "createdAt", Sort.Direction.ASC, null, null).getNextCursor();
+
+        pager.page(Item.class, null, "createdAt", Sort.Direction.ASC, cursor, null);
+
+        Document after = new Document("$or", List.of(
+                new Document("createdAt", new Document("$gt", T2)),
+                new Document("$and", List.of(new Document("createdAt", T2), new Document("id", new Document("$gt", "b"))))));
+        assertThat(lastQuery().getQueryObject()).isEqualTo(after);
+    }
+
+    @Test
+    void cursorOnAMissingTimestampRoundTrips() {
+        returns(new Item("c", T1), new Item("b", null), new Item("a", null));
+        String cursor = pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, null, null).getNextCursor();
+
+        pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, cursor, null);
+
+        // Descending, only the rest of the null-timestamp run is left
+        Document after = new Document("$and", List.of(
+                new Document("createdAt", null), new Document("id", new Document("$lt", "b"))));
+        assertThat(lastQuery().getQueryObject())
+                .isEqualTo(new Document("$and", List.of(new Document("userId", "u1"), after)));
+    }
+
+    @Test
+    void pageSizeIsCappedAtTheMaximum() {
+        returns();
+
+        pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, null, 1000);
+
+        assertThat(lastQuery().getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        returns();
+        for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "bm90LWEtZGF0ZXxpZA")) {
+            assertThatThrownBy(() -> pager.page(Item.class, OWNER, "createdAt", Sort.Direction.DESC, cursor, null))
+                    .as(cursor)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private void returns(Item... items) {
+        when(mongoTemplate.query(Item.class).as(Item.class).matching(any(Query.class)).all()).thenReturn(List.of(items));
+    }
+
+    private Query lastQuery() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate.query(Item.class).as(Item.class), atLeastOnce()).matching(captor.capture());
+        return captor.getValue();
+    }
+
+    record Item(@Id String id, LocalDateTime createdAt) {}
+}
@@ -0,0 +1,178 @@
+package com.arribot.service;
+
+import com.arribot.exception.AIOverloadedException;
+import com.arribot.model.AIFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AIRequestSchedulerTest {
+
+    private AIRequestScheduler scheduler;
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> threads = new ArrayList<>();
+    private final CountDownLatch holdSlot = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new AIRequestScheduler(new SimpleMeterRegistry());
+        // One slot so grants happen strictly one after another; defaults for the weights
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "maxWaitSeconds", 30L);
+        ReflectionTestUtils.setField(scheduler, "chatWeight", 1);
+        ReflectionTestUtils.setField(scheduler, "flashcardsWeight", 2);
+        ReflectionTestUtils.setField(scheduler, "quizWeight", 2);
+        ReflectionTestUtils.setField(scheduler, "summaryWeight", 2);
+        ReflectionTestUtils.setField(scheduler, "learningPathWeight", 8);
+        ReflectionTestUtils.setField(scheduler, "resumeWeight", 4);
+        for (String priority : List.of("interactive", "standard", "batch")) {
+            ReflectionTestUtils.setField(scheduler, priority + "MaxQueue", 100);
+            ReflectionTestUtils.setField(scheduler, priority + "MaxWaitSeconds", 3600L);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        holdSlot.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Test
+    void higherPriorityClassIsServedFirst() throws Exception {
+        scheduler.init();
+        occupySlot();
+
+        submit("a", AIFeature.LEARNING_PATH, "batch");
+        submit("b", AIFeature.SUMMARY, "standard");
+        submit("c", AIFeature.CHAT, "interactive");
+
+        assertThat(drain(3)).containsExactly("interactive", "standard", "batch");
+    }
+
+    @Test
+    void usersShareAClassInProportionToFeatureWeights() throws Exception {
+        scheduler.init();
+        occupySlot();
+
+        // Quantum is the heaviest weight (8): one learning path per round against two resume analyses
+        submit("alice", AIFeature.LEARNING_PATH, "alice-path-1");
+        submit("alice", AIFeature.LEARNING_PATH, "alice-path-2");
+        submit("bob", AIFeature.RESUME_ANALYSIS, "bob-resume-1");
+        submit("bob", AIFeature.RESUME_ANALYSIS, "bob-resume-2");
+        submit("bob", AIFeature.RESUME_ANALYSIS, "bob-resume-3");
+
+        assertThat(drain(5)).containsExactly(
+                "alice-path-1", "bob-resume-1", "bob-resume-2", "alice-path-2", "bob-resume-3");
+    }
+
+    @Test
+    void oneUserCannotStarveAnotherInTheSameClass() throws Exception {
+        scheduler.init();
+        occupySlot();
+
+        for (int i = 1; i <= 6; i++) {
+            submit("alice", AIFeature.SUMMARY, "alice-" + i);
+        }
+        submit("bob", AIFeature.SUMMARY, "bob-1");
+
+        // Each round credits alice 8, i.e. four summaries, before bob's turn comes
+        List<String> served = drain(7);
+        assertThat(served.indexOf("bob-1")).isEqualTo(4);
+    }
+
+    @Test
+    void requestsBeyondTheQueueDepthAreShedWithRetryAfter() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "batchMaxQueue", 1);
+        scheduler.init();
+        occupySlot();
+
+        submit("alice", AIFeature.RESUME_ANALYSIS, "queued");
+
+        assertThatThrownBy(() -> scheduler.execute("bob", AIFeature.RESUME_ANALYSIS, () -> "shed"))
+                .isInstanceOf(AIOverloadedException.class)
+                .satisfies(e -> assertThat(((AIOverloadedException) e).getRetryAfterSeconds()).isPositive());
+        // Higher classes are still admitted
+        submit("bob", AIFeature.CHAT, "chat");
+        assertThat(drain(2)).containsExactly("chat", "queued");
+    }
+
+    /**
+     * Take the only slot until the test releases it, so later requests queue up.
+     */
+    private void occupySlot() throws InterruptedException {
+        start(() -> scheduler.execute("holder", AIFeature.CHAT, () -> {
+            try {
+                holdSlot.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        awaitCondition(() -> scheduler.getInFlightCount() == 1);
+    }
+
+    /**
+     * Queue a request on its own thread and wait until it is queued, so submission order is deterministic.
+     */
+    private void submit(String userId, AIFeature feature, String label) throws InterruptedException {
+        int queuedBefore = totalQueued();
+        start(() -> scheduler.execute(userId, feature, () -> order.add(label)));
+        awaitCondition(() -> totalQueued() == queuedBefore + 1);
+    }
+
+    private List<String> drain(int expected) throws InterruptedException {
+        holdSlot.countDown();
+        awaitCondition(() -> order.size() == expected);
+        return new ArrayList<>(order);
+    }
+
+    private int totalQueued() {
+        int total = 0;
+        for (AIRequestScheduler.Priority priority : AIRequestScheduler.Priority.values()) {
+            total += scheduler.getQueuedCount(priority);
+        }
+        return total;
+    }
+
+    private void start(ThrowingRunnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (Exception ignored) {
+                // Assertions are made on the recorded order
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for the scheduler");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,30 @@
+package com.arribot.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkillExtractorTest {
+
+    private static SkillExtractor extractor;
+
+    @BeforeAll
+    static void loadDictionary() throws IOException {
+        extractor = new SkillExtractor(new ClassPathResource("skills/skills.txt"));
+    }
+
+    @Test
+    void findsSkillsBySynonymInOrderOfFirstMention() {
+        assertThat(extractor.extract("Built RESTful services in Swift 5 and JavaScript (ES6), then JS again"))
+                .containsExactly("REST APIs", "Swift language", "JavaScript");
+    }
+
+    @Test
+    void everydayWordsAreNotSkills() {
+        assertThat(extractor.extract("Mentored the rest of the team and ensured swift delivery")).isEmpty();
+    }
+}
@@ -0,0 +1,98 @@
+package com.arribot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AhoCorasickTest {
+
+    /**
+     * Matches as "pattern@start-end", in the order the listener saw them.
+     */
+    private static List<String> scan(List<String> patterns, String text) {
+        List<String> matches = new ArrayList<>();
+        new AhoCorasick(patterns).scan(text, (id, start, end) ->
+                matches.add(patterns.get(id) + "@" + start + "-" + end));
+        return matches;
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        List<String> patterns = List.of("Java", "Script");
+
+        assertThat(scan(patterns, "Java, Spring")).containsExactly("Java@0-4");
+        assertThat(scan(patterns, "JavaScript")).isEmpty();
+        assertThat(scan(patterns, "Javas and MyJava")).isEmpty();
+        assertThat(scan(patterns, "(Java)/Script.")).containsExactly("Java@1-5", "Script@7-13");
+    }
+
+    @Test
+    void digitsAreWordCharacters() {
+        assertThat(scan(List.of("ES6"), "ES6 and ES60")).containsExactly("ES6@0-3");
+        assertThat(scan(List.of("Python"), "Python3")).isEmpty();
+    }
+
+    @Test
+    void nonAsciiLettersAreWordBoundariesToo() {
+        // Not in the automaton, but still letters: "Javaé" is not the word Java
+        assertThat(scan(List.of("Java"), "Javaé éJava")).isEmpty();
+        assertThat(scan(List.of("Java"), "Zürich Java")).containsExactly("Java@7-11");
+    }
+
+    @Test
+    void boundariesAreOnlyCheckedWherePatternsHaveWordCharacters() {
+        // ".NET" starts with punctuation, so a letter before it is fine
+        assertThat(scan(List.of(".NET"), "ASP.NET Core")).containsExactly(".NET@3-7");
+        assertThat(scan(List.of(".NET"), ".NETwork")).isEmpty();
+        assertThat(scan(List.of("C++"), "C++17, C++")).containsExactly("C++@0-3", "C++@7-10");
+        assertThat(scan(List.of("C++"), "ABC++")).isEmpty();
+    }
+
+    @Test
+    void ignoresCase() {
+        assertThat(scan(List.of("MongoDB"), "MONGODB, mongodb and MongoDb"))
+                .containsExactly("MongoDB@0-7", "MongoDB@9-16", "MongoDB@21-28");
+    }
+
+    @Test
+    void reportsOverlappingAndNestedPatternsInOrderOfTheirEnd() {
+        List<String> patterns = List.of("Spring", "Spring Boot", "Boot");
+
+        assertThat(scan(patterns, "Spring Boot"))
+                .containsExactly("Spring@0-6", "Spring Boot@0-11", "Boot@7-11");
+    }
+
+    @Test
+    void followsFailureLinksAcrossPartialMatches() {
+        List<String> patterns = List.of("he", "she", "hers", "his");
+
+        assertThat(scan(patterns, "ushers")).isEmpty();
+        assertThat(scan(patterns, "she hers his")).containsExactly("she@0-3", "hers@4-8", "his@9-12");
+        assertThat(scan(List.of("ab ab c"), "ab ab ab c")).containsExactly("ab ab c@3-10");
+    }
+
+    @Test
+    void charactersNoPatternUsesRestartTheScan() {
+        assertThat(scan(List.of("Node.js"), "Node€js Node.js")).containsExactly("Node.js@8-15");
+    }
+
+    @Test
+    void rejectsEmptyAndNonAsciiPatterns() {
+        assertThatThrownBy(() -> new AhoCorasick(List.of("Java", "")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AhoCorasick(List.of("Zürich")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Zürich");
+    }
+
+    @Test
+    void worksWithoutPatterns() {
+        AhoCorasick matcher = new AhoCorasick(List.of());
+        assertThat(matcher.stateCount()).isEqualTo(1);
+        assertThat(scan(List.of(), "anything")).isEmpty();
+    }
+}
@@ -0,0 +1,94 @@
+package com.arribot.util;
+
+import com.arribot.model.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchHighlighterTest {
+
+    @Test
+    void stripsCommonSuffixesFromLongEnoughWords() {
+        assertThat(SearchHighlighter.stem("running")).isEqualTo("runn");
+        assertThat(SearchHighlighter.stem("parsed")).isEqualTo("pars");
+        assertThat(SearchHighlighter.stem("classes")).isEqualTo("class");
+        assertThat(SearchHighlighter.stem("cats")).isEqualTo("cat");
+        // Would leave fewer than three chars
+        assertThat(SearchHighlighter.stem("sing")).isEqualTo("sing");
+        assertThat(SearchHighlighter.stem("bus")).isEqualTo("bus");
+    }
+
+    @Test
+    void termsAreLowerCasedStemmedAndSplitOnNonWordChars() {
+        assertThat(SearchHighlighter.terms("Running  Node.js parsers"))
+                .containsExactly("runn", "node", "js", "parser");
+    }
+
+    @Test
+    void termsLeaveOutNegatedAndSingleCharWords() {
+        assertThat(SearchHighlighter.terms("mongo -java -Spring C++ x boot")).containsExactly("mongo", "boot");
+    }
+
+    @Test
+    void matchOffsetsPointIntoTheFragment() {
+        SearchHit.Highlight highlight = SearchHighlighter.highlight("answer",
+                "She was Running the parser", Set.of("runn", "pars"));
+
+        assertThat(highlight.field()).isEqualTo("answer");
+        assertThat(highlight.fragment()).isEqualTo("She was Running the parser");
+        assertThat(highlight.matches()).containsExactly(new int[] {8, 15}, new int[] {20, 26});
+    }
+
+    @Test
+    void fragmentStartsAtAWordShortlyBeforeTheFirstMatch() {
+        String text = "aaaaaaaaaa ".repeat(10) + "java rocks";
+        SearchHit.Highlight highlight = SearchHighlighter.highlight("text", text, Set.of("java"));
+
+        // 60 chars before the match lands mid-word, so the fragment backs off to that word's start
+        assertThat(highlight.fragment()).isEqualTo(text.substring(44));
+        int[] match = highlight.matches().get(0);
+        assertThat(highlight.fragment().substring(match[0], match[1])).isEqualTo("java");
+        assertThat(match).containsExactly(66, 70);
+    }
+
+    @Test
+    void fragmentIsCappedAndLeavesOutLaterMatches() {
+        String text = "java " + "filler ".repeat(40) + "java";
+        SearchHit.Highlight highlight = SearchHighlighter.highlight("text", text, Set.of("java"));
+
+        assertThat(highlight.fragment()).hasSize(200).isEqualTo(text.substring(0, 200));
+        assertThat(highlight.matches()).containsExactly(new int[] {0, 4});
+    }
+
+    @Test
+    void noHighlightWithoutAMatch() {
+        assertThat(SearchHighlighter.highlight("text", "nothing here", Set.of("java"))).isNull();
+        assertThat(SearchHighlighter.highlight("text", null, Set.of("java"))).isNull();
+        assertThat(SearchHighlighter.highlight("text", "", Set.of("java"))).isNull();
+    }
+
+    @Test
+    void highlightsTheFirstThreeMatchingFields() {
+        List<Map.Entry<String, String>> fields = List.of(
+                field("question", "What is Java?"),
+                field("answer", "A language"),
+                field("topic", null),
+                field("cards.0.question", "java"),
+                field("cards.1.question", "JAVA"),
+                field("cards.2.question", "Java again"));
+
+        List<SearchHit.Highlight> highlights = SearchHighlighter.highlights(fields, Set.of("java"));
+
+        assertThat(highlights).extracting(SearchHit.Highlight::field)
+                .containsExactly("question", "cards.0.question", "cards.1.question");
+    }
+
+    private static Map.Entry<String, String> field(String name, String value) {
+        return new AbstractMap.SimpleImmutableEntry<>(name, value);
+    }
+}
@@ -0,0 +1,97 @@
+package com.arribot.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    // Interesting code points for the fuzz: every \s char, Unicode spaces \s does not cover,
+    // controls, symbols, marks, supplementary letters and emoji, and lone surrogates
+    private static final int[] ALPHABET = {
+            'a', 'Z', '7', '.', ',', '-', '(', '"', '_', ' ', '\t', '\n', 0x0B, '\f', '\r',
+            0x00A0, 0x2003, 0x3000, 0x1C, 0x00, 0x7F, '$', '+', '©', '€', '•', 'é', 0x0301,
+            'ß', 'Ж', '中', '٣', 'Ⅻ', '½', '«', '»', 0x1D400, 0x1F600, 0x1F44D, 0xD800, 0xDC00
+    };
+
+    /**
+     * The pipeline TextNormalizer replaced; its output is the specification.
+     */
+    private static String regexClean(String text) {
+        return text.replaceAll("\\s+", " ").replaceAll("[^\\p{L}\\p{N}\\p{P}\\s]", "").trim();
+    }
+
+    @Test
+    void nullBecomesEmpty() {
+        assertThat(TextNormalizer.clean(null)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "   ",
+            "plain text",
+            "  leading and trailing  ",
+            "tab\there, newline\nthere, \u000B vertical \f feed \r\n crlf",
+            "runs   of \t\t mixed \n\n whitespace",
+            // Not \s: no-break and em spaces are symbols to drop, not whitespace to collapse
+            "no\u00A0break, em\u2003and ideographic\u3000spaces",
+            // A dropped char between two whitespace runs leaves both spaces
+            "a \u00A0 b",
+            "price: $5 + 3 = €8 © 2024",
+            "• bullet • list",
+            "emoji 😀 and thumbs 👍",
+            "math 𝐀 bold A",
+            "lone \uD800 high and \uDC00 low surrogates",
+            "combining é accent",
+            "Ünïcödé, Ж, 中文, ٣, Ⅻ, ½",
+            "«quotes» “curly” ‘single’ — dashes – and … ellipsis",
+            "control\u0000chars\u001Fand\u007Fdelete",
+            "\u2003\u00A0 only dropped chars \u00A0\u2003"
+    })
+    void matchesRegexPipeline(String text) {
+        assertThat(TextNormalizer.clean(text)).isEqualTo(regexClean(text));
+    }
+
+    @Test
+    void acceptsAnyCharSequence() {
+        StringBuilder text = new StringBuilder("  built \t incrementally  ");
+        assertThat(TextNormalizer.clean(text)).isEqualTo(regexClean(text.toString()));
+    }
+
+    @Test
+    void matchesRegexPipelineOnLongInputs() {
+        // Past the initial buffer, and past the size whose buffer is kept, then small again
+        for (int length : new int[]{8191, 8193, 100_000, (1 << 20) + 17, 64}) {
+            String text = randomText(new Random(length), length);
+            assertThat(TextNormalizer.clean(text)).isEqualTo(regexClean(text));
+        }
+    }
+
+    @Test
+    void matchesRegexPipelineOnRandomInputs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            String text = randomText(random, random.nextInt(40));
+            assertThat(TextNormalizer.clean(text)).as("input %s", escape(text)).isEqualTo(regexClean(text));
+        }
+    }
+
+    private static String randomText(Random random, int codePoints) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) {
+            text.appendCodePoint(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        text.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7E ? String.format("\\u%04X", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+}
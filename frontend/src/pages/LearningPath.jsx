@@ -147,8 +147,9 @@ function WeekAccordion({ week, pathId, onToggleMilestone }) {
 
 // ─── PathCard (List view) ─────────────────────────────────────────────────────
 function PathCard({ path, onSelect, onDelete }) {
-    const totalDays = path.weeks?.reduce((s, w) => s + (w.days?.length || 0), 0) || 0;
-    const completedDays = path.weeks?.reduce((s, w) => s + (w.days?.filter(d => d.completed).length || 0), 0) || 0;
+    // List items are summaries with server-side counts; full paths (after generate/update) carry weeks
+    const totalDays = path.totalDays ?? path.weeks?.reduce((s, w) => s + (w.days?.length || 0), 0) ?? 0;
+    const completedDays = path.completedDays ?? path.weeks?.reduce((s, w) => s + (w.days?.filter(d => d.completed).length || 0), 0) ?? 0;
     const pct = totalDays > 0 ? Math.round((completedDays / totalDays) * 100) : 0;
 
     return (
@@ -334,6 +335,8 @@ export default function LearningPath() {
     const [selectedPath, setSelectedPath] = useState(null);
     const [showModal, setShowModal] = useState(false);
     const [loadingPaths, setLoadingPaths] = useState(true);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
 
     useEffect(() => {
         fetchPaths();
@@ -343,7 +346,10 @@ export default function LearningPath() {
         setLoadingPaths(true);
         try {
             const res = await learningPathService.getAll();
-            if (res.success) setPaths(res.data || []);
+            if (res.success) {
+                setPaths(res.data || []);
+                setNextCursor(res.hasMore ? res.nextCursor : null);
+            }
         } catch {
             toast.error('Failed to load learning paths');
         } finally {
@@ -351,6 +357,36 @@ export default function LearningPath() {
         }
     };
 
+    // Next page after the last one loaded; skips paths already shown (e.g. generated since)
+    const loadMorePaths = async () => {
+        setLoadingMore(true);
+        try {
+            const res = await learningPathService.getAll(nextCursor);
+            if (res.success) {
+                setPaths(prev => [...prev, ...(res.data || []).filter(p => !prev.some(q => q.id === p.id))]);
+                setNextCursor(res.hasMore ? res.nextCursor : null);
+            }
+        } catch {
+            toast.error('Failed to load more learning paths');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    // The list only holds summaries, so load the full path (weeks and days) on selection
+    const handleSelect = async (path) => {
+        if (path.weeks) {
+            setSelectedPath(path);
+            return;
+        }
+        try {
+            const res = await learningPathService.getById(path.id);
+            if (res.success) setSelectedPath(res.data);
+        } catch {
+            toast.error('Failed to load learning path');
+        }
+    };
+
     const handleGenerated = (newPath) => {
         setPaths(prev => [newPath, ...prev]);
         setSelectedPath(newPath);
@@ -475,7 +511,7 @@ export default function LearningPath() {
                         {/* New path button */}
                         <div className="flex items-center justify-between mb-6">
                             <h2 className="text-lg font-bold text-white">
-                                {paths.length === 0 ? 'No paths yet' : `Your Paths (${paths.length})`}
+                                {paths.length === 0 ? 'No paths yet' : `Your Paths (${paths.length}${nextCursor ? '+' : ''})`}
                             </h2>
                             <button
                                 onClick={() => setShowModal(true)}
@@ -517,13 +553,25 @@ export default function LearningPath() {
                                         <PathCard
                                             key={path.id}
                                             path={path}
-                                            onSelect={setSelectedPath}
+                                            onSelect={handleSelect}
                                             onDelete={handleDelete}
                                         />
                                     ))}
                                 </AnimatePresence>
                             </motion.div>
                         )}
+
+                        {!loadingPaths && nextCursor && (
+                            <div className="flex justify-center mt-6">
+                                <button
+                                    onClick={loadMorePaths}
+                                    disabled={loadingMore}
+                                    className="flex items-center gap-2 px-5 py-2.5 rounded-xl border border-white/10 bg-white/5 text-white/70 text-sm hover:bg-white/10 disabled:opacity-50 transition"
+                                >
+                                    {loadingMore ? <><Loader2 size={16} className="animate-spin" /> Loading…</> : 'Load more'}
+                                </button>
+                            </div>
+                        )}
                     </div>
                 )}
             </div>
@@ -10,6 +10,8 @@ import resumeService from '../services/resumeService';
 export default function ResumeAnalyzer() {
     const navigate = useNavigate();
     const [resumes, setResumes] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [isLoadingMore, setIsLoadingMore] = useState(false);
     const [isLoading, setIsLoading] = useState(true);
     const [isUploading, setIsUploading] = useState(false);
     const [analyzingId, setAnalyzingId] = useState(null);
@@ -47,6 +49,7 @@ export default function ResumeAnalyzer() {
             const data = await resumeService.getUserResumes();
             if (data.success) {
                 setResumes(data.resumes);
+                setNextCursor(data.hasMore ? data.nextCursor : null);
             }
         } catch (error) {
             console.error("Failed to fetch resumes", error);
@@ -56,6 +59,23 @@ export default function ResumeAnalyzer() {
         }
     };
 
+    // Next page after the last one loaded; skips resumes already shown (e.g. uploaded since)
+    const loadMoreResumes = async () => {
+        setIsLoadingMore(true);
+        try {
+            const data = await resumeService.getUserResumes(nextCursor);
+            if (data.success) {
+                setResumes(prev => [...prev, ...data.resumes.filter(r => !prev.some(p => p.id === r.id))]);
+                setNextCursor(data.hasMore ? data.nextCursor : null);
+            }
+        } catch (error) {
+            console.error("Failed to fetch more resumes", error);
+            toast.error("Failed to load more archives");
+        } finally {
+            setIsLoadingMore(false);
+        }
+    };
+
     const handleFileUpload = async (e) => {
         const file = e.target.files[0];
         if (!file) return;
@@ -71,8 +91,23 @@ export default function ResumeAnalyzer() {
         try {
             const data = await resumeService.uploadResume(file);
             if (data.success) {
-                toast.success("Upload Complete", { id: toastId });
-                fetchResumes();
+                toast.loading("Extracting data stream...", { id: toastId });
+                let job;
+                try {
+                    job = await resumeService.waitForJob(data.jobId);
+                } catch (error) {
+                    toast.error(error.message, { id: toastId });
+                    fetchResumes();
+                    return;
+                }
+                if (job.status === 'COMPLETED') {
+                    toast.success("Upload Complete", { id: toastId });
+                    fetchResumes();
+                } else {
+                    toast.error(job.error || "Processing Failed", { id: toastId });
+                    // The resume may have been stored before analysis failed
+                    fetchResumes();
+                }
             } else {
                 toast.error(data.message || "Upload Failed", { id: toastId });
             }
@@ -315,6 +350,15 @@ export default function ResumeAnalyzer() {
                                 </motion.div>
                             ))
                         )}
+                        {nextCursor && (
+                            <button
+                                onClick={loadMoreResumes}
+                                disabled={isLoadingMore}
+                                className="w-full py-2 rounded-xl border border-white/10 bg-white/5 text-white/60 text-xs font-mono tracking-widest hover:bg-white/10 disabled:opacity-50 transition-colors flex items-center justify-center gap-2"
+                            >
+                                {isLoadingMore ? <><Loader className="animate-spin" size={14} /> LOADING...</> : 'LOAD MORE ARCHIVES'}
+                            </button>
+                        )}
                     </div>
                 </div>
 
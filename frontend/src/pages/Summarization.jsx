@@ -157,7 +157,7 @@ const Summarization = () => {
                                         <div className="bg-white/5 rounded-xl p-3 border border-white/5">
                                             <p className="text-xs text-white/40 mb-1">Reduction Rate</p>
                                             <p className="text-xl font-display font-medium text-emerald-400">
-                                                {Math.round((1 - summary.summarizedText.trim().split(/\s+/).length / summary.originalText.trim().split(/\s+/).length) * 100)}%
+                                                {Math.round((1 - summary.summarizedText.trim().split(/\s+/).length / (summary.originalWordCount || summary.originalText.trim().split(/\s+/).length)) * 100)}%
                                             </p>
                                         </div>
                                         <div className="bg-white/5 rounded-xl p-3 border border-white/5">
@@ -23,9 +23,9 @@ const learningPathService = {
         return response.data;
     },
 
-    // Get all learning paths for the current user
-    getAll: async () => {
-        const response = await axios.get(API_URL, getAuthHeaders());
+    // Get a page of learning paths for the current user (pass nextCursor for the next page)
+    getAll: async (cursor) => {
+        const response = await axios.get(API_URL, { ...getAuthHeaders(), params: { cursor } });
         return response.data;
     },
 
@@ -45,6 +45,16 @@ const learningPathService = {
         return response.data;
     },
 
+    // Toggle several milestones in one request: milestones = [{ week, day, completed }, ...]
+    updateMilestones: async (id, milestones, version) => {
+        const response = await axios.patch(
+            `${API_URL}/${id}/milestones`,
+            { milestones, version },
+            getAuthHeaders()
+        );
+        return response.data;
+    },
+
     // Delete a learning path
     delete: async (id) => {
         const response = await axios.delete(`${API_URL}/${id}`, getAuthHeaders());
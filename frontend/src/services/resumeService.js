@@ -14,7 +14,7 @@ const getAuthHeaders = () => {
 };
 
 const resumeService = {
-    // Upload Resume (PDF)
+    // Upload Resume (PDF); returns a jobId right away, processing continues in the background
     uploadResume: async (file) => {
         const formData = new FormData();
         formData.append('file', file);
@@ -29,9 +29,47 @@ const resumeService = {
         return response.data;
     },
 
-    // Get All Resumes
-    getUserResumes: async () => {
-        const response = await axios.get(`${API_URL}/list`, getAuthHeaders());
+    // Upload job status (QUEUED, EXTRACTING, PERSISTING, ANALYZING, COMPLETED, FAILED)
+    getJob: async (jobId) => {
+        const response = await axios.get(`${API_URL}/jobs/${jobId}`, getAuthHeaders());
+        return response.data;
+    },
+
+    // Poll an upload job until it finishes; resolves with the final job.
+    // Rejects with a displayable message if the job is gone, the server keeps failing,
+    // or the job is still running after timeoutMs (it carries on in the background).
+    waitForJob: async (jobId, { intervalMs = 1000, timeoutMs = 10 * 60 * 1000, maxNetworkErrors = 5 } = {}) => {
+        const deadline = Date.now() + timeoutMs;
+        let networkErrors = 0;
+        for (;;) {
+            try {
+                const data = await resumeService.getJob(jobId);
+                networkErrors = 0;
+                if (data.job.status === 'COMPLETED' || data.job.status === 'FAILED') {
+                    return data.job;
+                }
+            } catch (error) {
+                if (error.response?.status === 404) {
+                    throw new Error('Upload job not found. Please upload the resume again.');
+                }
+                if (error.response) {
+                    throw new Error(error.response.data?.message || 'Could not check the upload status.');
+                }
+                // No response: the connection dropped, keep polling for a while
+                if (++networkErrors >= maxNetworkErrors) {
+                    throw new Error('Lost connection while processing the upload. Refresh to see its status.');
+                }
+            }
+            if (Date.now() + intervalMs > deadline) {
+                throw new Error('Processing is taking longer than expected. The resume will appear once it is ready.');
+            }
+            await new Promise((resolve) => setTimeout(resolve, intervalMs));
+        }
+    },
+
+    // Get a page of resumes (pass nextCursor for the next page)
+    getUserResumes: async (cursor) => {
+        const response = await axios.get(`${API_URL}/list`, { ...getAuthHeaders(), params: { cursor } });
         return response.data;
     },
 
@@ -39,6 +39,12 @@ api.interceptors.response.use(
             error.rateLimitMessage = data.message || "Too many requests";
             console.warn("AI Rate Limit Exceeded:", error.rateLimitMessage);
         }
+        if (error.response && error.response.status === 503 && error.response.data?.error === 'AI_OVERLOADED') {
+            // Request was shed by backend admission control; Retry-After says when to try again
+            error.isOverloaded = true;
+            error.retryAfterSeconds = Number(error.response.headers['retry-after']) || null;
+            console.warn("AI service overloaded, retry after", error.retryAfterSeconds, "s");
+        }
         return Promise.reject(error);
     }
 );
@@ -54,6 +60,9 @@ export const chatAPI = {
 
     getChatHistory: (sessionId) =>
         api.get(`/api/chat/history/${sessionId}`),
+
+    getSessions: (userId) =>
+        api.get('/api/chat/sessions', { params: { userId: userId || getUserId() } }),
 };
 
 // Flashcards API
@@ -66,10 +75,10 @@ export const flashcardsAPI = {
         }),
 
     getByTopic: (topic) =>
-        api.get(`/api/flashcards/topic/${topic}`),
+        api.get(`/api/flashcards/topic/${topic}`, { params: { userId: getUserId() } }),
 
-    getAll: () =>
-        api.get('/api/flashcards'),
+    getAll: (cursor) =>
+        api.get('/api/flashcards', { params: { userId: getUserId(), cursor } }),
 };
 
 // Quiz API
@@ -82,13 +91,13 @@ export const quizAPI = {
         }),
 
     getByTopic: (topic) =>
-        api.get(`/api/quiz/topic/${topic}`),
+        api.get(`/api/quiz/topic/${topic}`, { params: { userId: getUserId() } }),
 
     getById: (id) =>
         api.get(`/api/quiz/${id}`),
 
-    getAll: () =>
-        api.get('/api/quiz'),
+    getAll: (cursor) =>
+        api.get('/api/quiz', { params: { userId: getUserId(), cursor } }),
 };
 
 // Summary API
@@ -99,8 +108,14 @@ export const summaryAPI = {
             userId: userId || getUserId()
         }),
 
-    getAll: () =>
-        api.get('/api/summarize'),
+    getAll: (cursor) =>
+        api.get('/api/summarize', { params: { userId: getUserId(), cursor } }),
+};
+
+// Search API
+export const searchAPI = {
+    search: (q, { type, page = 0, size = 20 } = {}) =>
+        api.get('/api/search', { params: { userId: getUserId(), q, type, page, size } }),
 };
 
 // AI Usage API